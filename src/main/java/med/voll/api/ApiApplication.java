@@ -3,9 +3,11 @@ package med.voll.api;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.web.config.EnableSpringDataWebSupport;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 //Anotação para definir padrão de paginação, ao invés de utilizar o padrão do Pageabre
 @EnableSpringDataWebSupport(pageSerializationMode = EnableSpringDataWebSupport.PageSerializationMode.VIA_DTO)
+@EnableScheduling //Habilita as tarefas agendadas (ex: verificação de consistência do índice de ocupação da agenda)
 @SpringBootApplication
 public class ApiApplication {
 
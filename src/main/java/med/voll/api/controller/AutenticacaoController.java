@@ -3,43 +3,99 @@ package med.voll.api.controller;
 
 import jakarta.validation.Valid;
 import med.voll.api.domain.usuario.DadosAutenticacao;
-import med.voll.api.domain.usuario.Usuario;
+import med.voll.api.domain.usuario.DadosLoginUsuario;
+import med.voll.api.infra.security.DadosRenovacaoToken;
 import med.voll.api.infra.security.DadosTokenJWT;
+import med.voll.api.infra.security.ExecutorAutenticacao;
+import med.voll.api.infra.security.ListaRevogacaoTokens;
+import med.voll.api.infra.security.RenovacaoTokens;
 import med.voll.api.infra.security.TokenService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 @RestController
 @RequestMapping("/login")
 public class AutenticacaoController {
 
+    private static final Logger log = LoggerFactory.getLogger(AutenticacaoController.class);
+
     @Autowired
     private AuthenticationManager manager; //Gerenciador de autenticacao padrão do Spring (Chama a classe AutenticacaoService)
 
     @Autowired
     private TokenService tokenService; //Classe gerada manualmente para obter o token
 
+    @Autowired
+    private ListaRevogacaoTokens listaRevogacao;
+
+    @Autowired
+    private ExecutorAutenticacao executorAutenticacao;
+
+    @Autowired
+    private RenovacaoTokens renovacaoTokens;
+
+    /**
+     * A verificação da senha (BCrypt) roda no ExecutorAutenticacao e a thread do Tomcat é liberada enquanto isso,
+     * para que um pico de logins não trave os demais endpoints. Com o pool cheio a resposta é 503.
+     * As falhas (credenciais inválidas, erro inesperado) seguem para o TratadorDeErros, como nos demais endpoints
+     */
     @PostMapping
-    public ResponseEntity efetuarLogin(@RequestBody @Valid DadosAutenticacao dados) {
-        try {
+    public CompletableFuture<ResponseEntity<DadosTokenJWT>> efetuarLogin(@RequestBody @Valid DadosAutenticacao dados) {
+        return executorAutenticacao.executar(() -> {
             // Pra obter o authenticationToken, necessita dessa classe UsernamePasswordAuthenticationToken
             var authenticationToken = new UsernamePasswordAuthenticationToken(dados.login(), dados.senha());
             var authentication = manager.authenticate(authenticationToken);
 
             // Devolvendo um token gerado utilizando o tokenService
-            // Em authentication o método getPrincipal() retorna o Object<Usuario>
-            // Basta fazer o cash para a classe Usuario
-            var tokenJWT = tokenService.gerarToken((Usuario) authentication.getPrincipal());
-            return ResponseEntity.ok(new DadosTokenJWT(tokenJWT));
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.badRequest().body(e.getMessage());
+            // Em authentication o método getPrincipal() retorna o Object<DadosLoginUsuario> devolvido pelo AutenticacaoService
+            // Basta fazer o cast para a classe DadosLoginUsuario
+            var usuario = (DadosLoginUsuario) authentication.getPrincipal();
+            var tokenJWT = tokenService.gerarToken(usuario);
+            return ResponseEntity.ok(new DadosTokenJWT(tokenJWT, renovacaoTokens.emitir(usuario)));
+        }).whenComplete((resposta, erro) -> {
+            var causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+            if (causa instanceof AuthenticationException) {
+                log.debug("Login recusado para {}: {}", dados.login(), causa.getMessage());
+            } else if (causa != null) {
+                log.error("Erro inesperado no login de {}", dados.login(), causa);
+            }
+        });
+    }
+
+    /**
+     * Troca um refresh token por um novo token JWT (e um novo refresh token), sem verificar a senha novamente
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<DadosTokenJWT> renovarToken(@RequestBody @Valid DadosRenovacaoToken dados) {
+        return ResponseEntity.ok(renovacaoTokens.renovar(dados.refreshToken()));
+    }
+
+    /**
+     * Logout: como o token é stateless, ele é incluído na lista de revogação até expirar.
+     * O refresh token recebido no corpo tem a família revogada, senão ele continuaria gerando novos tokens após o logout
+     */
+    @DeleteMapping
+    public ResponseEntity<Void> efetuarLogout(@RequestHeader("Authorization") String authorizationHeader,
+                                              @RequestBody(required = false) @Valid DadosRenovacaoToken dados) {
+        var token = tokenService.verificar(authorizationHeader.replace("Bearer ", ""));
+        listaRevogacao.revogarToken(token);
+        if (dados != null) {
+            renovacaoTokens.revogarFamilia(dados.refreshToken(), token.login());
         }
+        return ResponseEntity.noContent().build();
     }
 }
@@ -4,12 +4,20 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import med.voll.api.domain.consulta.AgendaDeConsultas;
+import med.voll.api.domain.consulta.CalendarioDisponibilidade;
 import med.voll.api.domain.consulta.DadosAgendamentoConsulta;
+import med.voll.api.domain.consulta.DadosAgendamentoLote;
 import med.voll.api.domain.consulta.DadosCancelamentoConsulta;
+import med.voll.api.domain.consulta.DadosDisponibilidade;
+import med.voll.api.domain.medico.Especialidade;
+import med.voll.api.infra.metricas.OrcamentoConsultasSql;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+
 @RestController
 @RequestMapping("/consultas")
 @SecurityRequirement(name = "bearer-key")
@@ -18,13 +26,34 @@ public class ConsultaController {
     @Autowired
     private AgendaDeConsultas agenda;
 
+    @Autowired
+    private CalendarioDisponibilidade calendario;
+
+    // Horários livres (segunda a sábado, 07h às 18h) da especialidade no período, respondidos pelos índices em memória
+    @GetMapping("/disponibilidade")
+    @OrcamentoConsultasSql(0)
+    public ResponseEntity<DadosDisponibilidade> disponibilidade(@RequestParam Especialidade especialidade,
+                                                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+                                                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate) {
+        return ResponseEntity.ok(calendario.consultar(especialidade, de, ate));
+    }
+
     @PostMapping
     @Transactional
+    @OrcamentoConsultasSql(4) //Verificação do agendamento e insert, mais a reserva de um novo bloco de ids a cada 50 consultas
     public ResponseEntity agendar(@RequestBody @Valid DadosAgendamentoConsulta dados) {
         var dto = agenda.agendar(dados);
         return ResponseEntity.ok(dto);
     }
 
+    // Sem @Transactional: a agenda grava o lote em transações próprias, para poder repetir a gravação sem os itens que perderem a disputa pelo horário
+    @PostMapping("/lote")
+    @OrcamentoConsultasSql(Integer.MAX_VALUE) //Proporcional ao tamanho do lote
+    public ResponseEntity agendarEmLote(@RequestBody @Valid DadosAgendamentoLote dados) {
+        var resultado = agenda.agendarEmLote(dados.consultas());
+        return ResponseEntity.ok(resultado);
+    }
+
     @DeleteMapping
     @Transactional
     public ResponseEntity cancelar(@RequestBody @Valid DadosCancelamentoConsulta dados) {
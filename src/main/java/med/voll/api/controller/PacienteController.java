@@ -1,33 +1,71 @@
 package med.voll.api.controller;
 
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import med.voll.api.domain.paciente.*;
+import med.voll.api.infra.datasource.SomenteLeitura;
+import med.voll.api.infra.http.ETagVersao;
+import med.voll.api.infra.importacao.DadosResultadoImportacao;
+import med.voll.api.infra.importacao.FormatoImportacao;
+import med.voll.api.infra.importacao.ImportadorEmLote;
+import med.voll.api.infra.metricas.OrcamentoConsultasSql;
+import med.voll.api.infra.paginacao.CursorPaginacao;
+import med.voll.api.infra.paginacao.DadosPaginaCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Function;
+
 @RestController
 @RequestMapping("/pacientes")
 @SecurityRequirement(name = "bearer-key") //Adicionando bearer-key na documentação (pode ser anotado tanto na classe quanto nos métodos)
 public class PacienteController {
 
+    private static final int TAMANHO_MAXIMO_PAGINA = 100;
+
     @Autowired
     private PacienteRepository repository;
 
+    @Autowired
+    private ImportadorEmLote importador;
+
+    @Autowired
+    private ImportacaoPacientes importacaoPacientes;
+
     @GetMapping("/{id}")
-    public ResponseEntity<DadosDetalhamentoPaciente> detalhar(@PathVariable Long id){
-        var paciente = repository.getReferenceById(id);
-        return ResponseEntity.ok(new DadosDetalhamentoPaciente(paciente));
+    @SomenteLeitura
+    @OrcamentoConsultasSql(2) //Versão e detalhamento (só a versão quando responde 304)
+    public ResponseEntity<DadosDetalhamentoPaciente> detalhar(@PathVariable Long id, WebRequest request){
+        // A versão é lida antes do registro: se ele mudar entre as duas leituras o corpo é mais novo que o ETag, nunca o contrário
+        var versao = repository.findVersaoById(id);
+        if (versao == null) {
+            throw new EntityNotFoundException();
+        }
+        var etag = ETagVersao.de(versao);
+        if (request.checkNotModified(etag)) {
+            return null; //304 já preenchido pelo Spring, sem carregar nem serializar o detalhamento
+        }
+
+        var detalhamento = repository.findDetalhamentoById(id).orElseThrow(EntityNotFoundException::new);
+        return ResponseEntity.ok().eTag(etag).body(detalhamento);
     }
 
     @PostMapping
     @Transactional
+    @OrcamentoConsultasSql(3) //Insert, mais a reserva de um novo bloco de ids a cada 50 cadastros
     public ResponseEntity<DadosDetalhamentoPaciente> cadastrar(@RequestBody @Valid DadosCadastroPaciente dados, UriComponentsBuilder uriBuider) {
         var paciente = new Paciente(dados);
         repository.save(paciente);
@@ -35,22 +73,63 @@ public class PacienteController {
         return ResponseEntity.created(uri).body(new DadosDetalhamentoPaciente(paciente));
     }
 
+    // O corpo é lido direto do request, sem @RequestBody, para não carregar o arquivo inteiro em memória
+    // Cada lote é gravado na sua própria transação, por isso o método não é @Transactional
+    @PostMapping(path = "/importacao", consumes = {"text/csv", "application/x-ndjson"})
+    @OrcamentoConsultasSql(Integer.MAX_VALUE) //Proporcional ao tamanho do arquivo
+    public ResponseEntity<DadosResultadoImportacao> importar(HttpServletRequest request) throws IOException {
+        var formato = FormatoImportacao.de(request.getContentType());
+        var resultado = importador.importar(request.getInputStream(), formato, importacaoPacientes);
+        return ResponseEntity.ok(resultado);
+    }
+
     @GetMapping
+    @SomenteLeitura
+    @OrcamentoConsultasSql(2) //Página e count
     public ResponseEntity<Page<DadosListagemPaciente>> listar(@PageableDefault(size = 10, sort = {"nome"}) Pageable paginacao) {
-        var page = repository.findByAtivoTrue(paginacao).map(DadosListagemPaciente::new);
+        var page = repository.findListagemDosAtivos(paginacao);
         return ResponseEntity.ok(page);
     }
 
+    // Listagem por cursor: ordena por (nome, id) e o cliente repassa o proximoCursor devolvido para buscar a página seguinte
+    // O total (count) só é calculado quando solicitado
+    @GetMapping("/cursor")
+    @SomenteLeitura
+    @OrcamentoConsultasSql(2) //Página e, se solicitado, o total
+    public ResponseEntity<DadosPaginaCursor<DadosListagemPaciente>> listarPorCursor(@RequestParam(required = false) String cursor,
+                                                                                    @RequestParam(defaultValue = "10") int tamanho,
+                                                                                    @RequestParam(defaultValue = "false") boolean total) {
+        tamanho = Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO_PAGINA));
+        var limite = Limit.of(tamanho + 1); //Uma linha a mais indica se existe próxima página
+        List<DadosListagemPaciente> linhas;
+        if (cursor == null || cursor.isBlank()) {
+            linhas = repository.findAtivosOrdenadosPorNome(limite);
+        } else {
+            var posicao = CursorPaginacao.decodificar(cursor);
+            linhas = repository.findAtivosOrdenadosPorNomeApos(posicao.nome(), posicao.id(), limite);
+        }
+
+        var pagina = DadosPaginaCursor.de(linhas, tamanho, Function.identity(),
+                paciente -> new CursorPaginacao(paciente.nome(), paciente.id()),
+                total ? repository.countByAtivoTrue() : null);
+        return ResponseEntity.ok(pagina);
+    }
+
     @PutMapping
     @Transactional
-    public ResponseEntity<DadosDetalhamentoPaciente> atualizar(@RequestBody @Valid DadosAtualizacaoPaciente dados) {
+    @OrcamentoConsultasSql(2)
+    public ResponseEntity<DadosDetalhamentoPaciente> atualizar(@RequestBody @Valid DadosAtualizacaoPaciente dados,
+                                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         var paciente = repository.getReferenceById(dados.id());
+        ETagVersao.verificarIfMatch(ifMatch, paciente.getVersao()); //Com If-Match, só altera se o cliente leu a versão atual
         paciente.atualizarInformacoes(dados);
-        return ResponseEntity.ok(new DadosDetalhamentoPaciente(paciente));
+        repository.flush(); //Incrementa a versão agora (o update sairia no commit de qualquer forma), para devolver o ETag novo
+        return ResponseEntity.ok().eTag(ETagVersao.de(paciente.getVersao())).body(new DadosDetalhamentoPaciente(paciente));
     }
 
     @DeleteMapping("/{id}")
     @Transactional
+    @OrcamentoConsultasSql(2)
     public ResponseEntity<Void> excluir(@PathVariable Long id){
         var paciente = repository.getReferenceById(id);
         paciente.excluir();
@@ -2,19 +2,47 @@ package med.voll.api.domain.consulta;
 
 import jakarta.validation.Valid;
 import med.voll.api.domain.ValidacaoException;
-import med.voll.api.domain.consulta.validacoes.agendamento.ValidadorAgendamentoDeConsulta;
+import med.voll.api.domain.consulta.validacoes.agendamento.PipelineValidacaoAgendamento;
+import med.voll.api.domain.consulta.validacoes.agendamento.ValidadorMedicoComOutraConsultaNoMesmoHorario;
+import med.voll.api.domain.consulta.validacoes.agendamento.ValidadorPacienteSemOutraConsultaNoDia;
 import med.voll.api.domain.consulta.validacoes.cancelamento.ValidadorCancelamentoDeConsulta;
+import med.voll.api.domain.medico.DisponibilidadeMedicos;
 import med.voll.api.domain.medico.Medico;
 import med.voll.api.domain.medico.MedicoRepository;
 import med.voll.api.domain.paciente.PacienteRepository;
+import med.voll.api.infra.metricas.MetricasValidacao;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 @Service
 public class AgendaDeConsultas {
 
+    private static final String PACIENTE_INEXISTENTE = "Id do paciente informado não existe!";
+    private static final String MEDICO_INEXISTENTE = "Id do Medico informado não existe!";
+    private static final String SEM_MEDICO_DISPONIVEL = "Não existe médico disponível na data e especialidade informada!";
+    private static final String HORARIO_OCUPADO = ValidadorMedicoComOutraConsultaNoMesmoHorario.MENSAGEM; //Mesmo erro do validador, para quem perde a disputa pelo índice único
+    private static final String RESERVA_DISPUTADA = "Horário disputado por outro agendamento simultâneo, tente novamente!";
+    private static final String INDICE_HORARIO_MEDICO = "uk_consultas_medico_data_ativa";
+    private static final int TENTATIVAS_RESERVA_LOTE = 2; //A gravação original e uma nova tentativa sem os itens em conflito
+
     @Autowired
     private ConsultaRepository consultaRepository;
 
@@ -25,36 +53,220 @@ public class AgendaDeConsultas {
     private PacienteRepository pacienteRepository;
 
     @Autowired
-    private List<ValidadorAgendamentoDeConsulta> validadores; //Injetando uma lista de validadores usando a interface
+    private IndiceOcupacaoAgenda indiceOcupacao;
+
+    @Autowired
+    private DisponibilidadeMedicos disponibilidadeMedicos;
+
+    @Autowired
+    private PipelineValidacaoAgendamento validacoes; //Executa todos os validadores de agendamento (implementações da interface)
 
     @Autowired
     private List<ValidadorCancelamentoDeConsulta> validadoresCancelamento;
 
+    @Autowired
+    private MetricasValidacao metricasValidacao;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     public DadosDetalhamentoConsulta agendar(DadosAgendamentoConsulta dados) {
 
-        if(!pacienteRepository.existsById(dados.idPaciente())) {
-            throw new ValidacaoException("Id do paciente informado não existe!");
-        }
+        //Uma única consulta traz a existência e o status do paciente e do médico e os conflitos de horário usados pelos validadores
+        var dia = dados.data().toLocalDate();
+        var verificacao = consultaRepository.verificarAgendamento(dados.idPaciente(), dados.idMedico(), dados.data(), dia.atStartOfDay(), dia.atTime(LocalTime.MAX))
+                .orElseThrow(() -> new ValidacaoException(PACIENTE_INEXISTENTE));
 
-        if(dados.idMedico() != null && !medicoRepository.existsById(dados.idMedico())) {
-            throw new ValidacaoException("Id do Medico informado não existe!");
+        if(dados.idMedico() != null && verificacao.medicoAtivo() == null) {
+            throw new ValidacaoException(MEDICO_INEXISTENTE);
         }
 
-        //Executando a validação (um por um) da lista que implementa essa interface
-        validadores.forEach(v -> v.validar(dados));
+        validacoes.validar(dados, verificacao);
 
         var paciente = pacienteRepository.getReferenceById(dados.idPaciente());
         var medico = escolherMedico(dados);
         if(medico == null) {
-            throw new ValidacaoException("Não existe médico disponível na data e especialidade informada!");
+            throw new ValidacaoException(SEM_MEDICO_DISPONIVEL);
         }
         var consulta = new Consulta(null, medico, paciente, dados.data(), null);
-        consultaRepository.save(consulta);
+        reservarHorarios(List.of(consulta));
+        indiceOcupacao.registrar(consulta);
 
         return new DadosDetalhamentoConsulta(consulta);
     }
 
+    /**
+     * Agenda várias consultas de uma vez (ex: sessões semanais de fisioterapia).
+     * Existência e status de médicos/pacientes são verificados uma única vez por id distinto, conflitos entre os
+     * próprios itens do lote são detectados em memória e as consultas válidas são gravadas juntas.
+     * Itens inválidos não impedem o agendamento dos demais: o resultado informa o sucesso ou erro de cada um,
+     * inclusive quando outra requisição reserva um dos horários entre a validação e a gravação (ver reservarHorariosDoLote).
+     */
+    public DadosResultadoAgendamentoLote agendarEmLote(List<DadosAgendamentoConsulta> lote) {
+        var erros = new TreeMap<Integer, String>();
+        //Validação numa transação de leitura e escrita, para ler da primária; a gravação vem depois, em transações próprias
+        var agendadas = new TransactionTemplate(transactionManager).execute(status -> validarLote(lote, erros));
+
+        reservarHorariosDoLote(agendadas, erros);
+
+        var itens = new ArrayList<DadosResultadoAgendamentoLote.Item>(lote.size());
+        for (int i = 0; i < lote.size(); i++) {
+            itens.add(agendadas.containsKey(i)
+                    ? DadosResultadoAgendamentoLote.Item.agendada(i, agendadas.get(i))
+                    : DadosResultadoAgendamentoLote.Item.rejeitada(i, erros.get(i)));
+        }
+        return new DadosResultadoAgendamentoLote(itens);
+    }
+
+    // Valida os itens do lote e monta, por posição, as consultas a gravar; as posições rejeitadas ficam em erros
+    private Map<Integer, Consulta> validarLote(List<DadosAgendamentoConsulta> lote, Map<Integer, String> erros) {
+        validarExistencia(lote, erros);
+
+        //Cada validador recebe apenas os itens que ainda não falharam, mantendo a ordem de validação do agendamento individual
+        for (var validador : validacoes.validadores()) {
+            var pendentes = pendentes(lote, erros);
+            var errosValidador = validador.validarLote(pendentes.stream().map(lote::get).toList());
+            errosValidador.forEach((posicao, erro) -> erros.put(pendentes.get(posicao), erro));
+        }
+
+        var medicosPorHorario = new HashMap<LocalDateTime, Set<Long>>();
+        var diasPorPaciente = new HashMap<Long, Set<LocalDate>>();
+        var agendadas = new HashMap<Integer, Consulta>();
+        for (var indice : pendentes(lote, erros)) {
+            var dados = lote.get(indice);
+            try {
+                var ocupadosNoHorario = medicosPorHorario.computeIfAbsent(dados.data(), data -> new HashSet<>());
+                if (dados.idMedico() != null && ocupadosNoHorario.contains(dados.idMedico())) {
+                    throw new ValidacaoException(HORARIO_OCUPADO);
+                }
+                var diasOcupados = diasPorPaciente.computeIfAbsent(dados.idPaciente(), id -> new HashSet<>());
+                if (diasOcupados.contains(dados.data().toLocalDate())) {
+                    throw new ValidacaoException(ValidadorPacienteSemOutraConsultaNoDia.MENSAGEM);
+                }
+
+                var medico = escolherMedico(dados, ocupadosNoHorario);
+                if(medico == null) {
+                    throw new ValidacaoException(SEM_MEDICO_DISPONIVEL);
+                }
+                ocupadosNoHorario.add(medico.getId());
+                diasOcupados.add(dados.data().toLocalDate());
+                agendadas.put(indice, new Consulta(null, medico, pacienteRepository.getReferenceById(dados.idPaciente()), dados.data(), null));
+            } catch (ValidacaoException ex) {
+                erros.put(indice, ex.getMessage());
+            }
+        }
+
+        return agendadas;
+    }
+
+    /**
+     * Grava as consultas imediatamente (flush), para que o índice único uk_consultas_medico_data_ativa (V13) seja verificado aqui.
+     * Ele é a garantia final contra agendamento duplo: requisições simultâneas podem passar juntas pelos validadores,
+     * mas só a primeira a gravar reserva o horário, sem precisar de lock pessimista. A perdedora recebe o mesmo erro do validador.
+     */
+    private void reservarHorarios(Collection<Consulta> consultas) {
+        try {
+            consultaRepository.saveAllAndFlush(consultas);
+        } catch (DataIntegrityViolationException ex) {
+            if (violouIndiceHorarioMedico(ex)) {
+                throw new ValidacaoException(HORARIO_OCUPADO);
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Grava as consultas válidas do lote numa transação própria, com o mesmo flush imediato de reservarHorarios.
+     * Se o índice único uk_consultas_medico_data_ativa recusar algum horário (reservado por outra requisição depois da validação),
+     * a transação inteira é desfeita: os pares (médico, horário) do lote são verificados de novo na primária, apenas os itens
+     * em conflito são rejeitados e os demais são gravados mais uma vez, em outra transação.
+     * Por isso o endpoint do lote não envolve o agendamento numa transação: cada tentativa usa uma única conexão e,
+     * após uma violação, a transação do Hibernate não pode mais ser reaproveitada.
+     */
+    private void reservarHorariosDoLote(Map<Integer, Consulta> agendadas, Map<Integer, String> erros) {
+        var transacao = new TransactionTemplate(transactionManager);
+        transacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        for (int tentativa = 1; !agendadas.isEmpty(); tentativa++) {
+            var consultas = List.copyOf(agendadas.values());
+            try {
+                transacao.executeWithoutResult(status -> {
+                    consultaRepository.saveAllAndFlush(consultas);
+                    consultas.forEach(indiceOcupacao::registrar); //Registradas no índice apenas após o commit
+                });
+                return;
+            } catch (DataIntegrityViolationException ex) {
+                if (!violouIndiceHorarioMedico(ex)) {
+                    throw ex;
+                }
+                var ocupados = transacao.execute(status -> medicosOcupadosPorHorario(consultas));
+                var pendentes = new HashMap<Integer, Consulta>();
+                for (var agendada : agendadas.entrySet()) {
+                    var consulta = agendada.getValue();
+                    if (ocupados.getOrDefault(consulta.getData(), Set.of()).contains(consulta.getMedico().getId())) {
+                        erros.put(agendada.getKey(), HORARIO_OCUPADO);
+                    } else if (tentativa == TENTATIVAS_RESERVA_LOTE) {
+                        erros.put(agendada.getKey(), RESERVA_DISPUTADA);
+                    } else {
+                        //A consulta da tentativa desfeita já recebeu um id, então a nova tentativa grava uma instância nova
+                        pendentes.put(agendada.getKey(), new Consulta(null, consulta.getMedico(), consulta.getPaciente(), consulta.getData(), null));
+                    }
+                }
+                agendadas.clear();
+                agendadas.putAll(pendentes);
+            }
+        }
+    }
+
+    // Uma única consulta ao banco pelos médicos e horários do lote, como no validador de horário do médico
+    private Map<LocalDateTime, Set<Long>> medicosOcupadosPorHorario(Collection<Consulta> consultas) {
+        var idsMedicos = consultas.stream().map(consulta -> consulta.getMedico().getId()).collect(Collectors.toSet());
+        var datas = consultas.stream().map(Consulta::getData).collect(Collectors.toSet());
+        var ocupados = new HashMap<LocalDateTime, Set<Long>>();
+        for (var ocupacao : consultaRepository.findOcupacaoAtivaDosMedicosNosHorarios(idsMedicos, datas)) {
+            ocupados.computeIfAbsent(ocupacao.data(), data -> new HashSet<>()).add(ocupacao.idMedico());
+        }
+        return ocupados;
+    }
+
+    private boolean violouIndiceHorarioMedico(DataIntegrityViolationException ex) {
+        var causa = ex.getMostSpecificCause().getMessage();
+        return causa != null && causa.contains(INDICE_HORARIO_MEDICO);
+    }
+
+    // Uma consulta por tabela para verificar a existência de todos os ids distintos do lote
+    private void validarExistencia(List<DadosAgendamentoConsulta> lote, Map<Integer, String> erros) {
+        var idsPacientes = lote.stream().map(DadosAgendamentoConsulta::idPaciente).collect(Collectors.toSet());
+        var pacientesExistentes = new HashSet<>(pacienteRepository.findIdsExistentes(idsPacientes));
+
+        var idsMedicos = lote.stream().map(DadosAgendamentoConsulta::idMedico).filter(Objects::nonNull).collect(Collectors.toSet());
+        var medicosExistentes = idsMedicos.isEmpty() ? Set.<Long>of() : new HashSet<>(medicoRepository.findIdsExistentes(idsMedicos));
+
+        for (int i = 0; i < lote.size(); i++) {
+            var dados = lote.get(i);
+            if (!pacientesExistentes.contains(dados.idPaciente())) {
+                erros.put(i, PACIENTE_INEXISTENTE);
+            } else if (dados.idMedico() != null && !medicosExistentes.contains(dados.idMedico())) {
+                erros.put(i, MEDICO_INEXISTENTE);
+            }
+        }
+    }
+
+    private List<Integer> pendentes(List<DadosAgendamentoConsulta> lote, Map<Integer, String> erros) {
+        var pendentes = new ArrayList<Integer>();
+        for (int i = 0; i < lote.size(); i++) {
+            if (!erros.containsKey(i)) {
+                pendentes.add(i);
+            }
+        }
+        return pendentes;
+    }
+
     private Medico escolherMedico(DadosAgendamentoConsulta dados) {
+        return escolherMedico(dados, Set.of());
+    }
+
+    private Medico escolherMedico(DadosAgendamentoConsulta dados, Set<Long> medicosIgnorados) {
         if(dados.idMedico() != null) {
             return medicoRepository.getReferenceById(dados.idMedico());
         }
@@ -63,7 +275,8 @@ public class AgendaDeConsultas {
             throw new ValidacaoException("Especialidade é obrigatória quando o médico não for escolhido!");
         }
 
-        return medicoRepository.escolherMedicoAleatorioLivreNaData(dados.especialidade(), dados.data());
+        var idMedicoLivre = disponibilidadeMedicos.escolherMedicoAleatorioLivre(dados.especialidade(), dados.data(), medicosIgnorados);
+        return (idMedicoLivre != null) ? medicoRepository.getReferenceById(idMedicoLivre) : null;
     }
 
     public void cancelar(@Valid DadosCancelamentoConsulta dados) {
@@ -71,9 +284,13 @@ public class AgendaDeConsultas {
             throw new ValidacaoException("Id da consulta informado não existe!");
         }
 
-        validadoresCancelamento.forEach(v -> v.validar(dados));
+        validadoresCancelamento.forEach(v -> metricasValidacao.medir(MetricasValidacao.CANCELAMENTO, v, () -> v.validar(dados)));
 
         var consulta = consultaRepository.getReferenceById(dados.idConsulta());
+        var jaCancelada = consulta.getMotivoCancelamento() != null;
         consulta.cancelar(dados.motivo());
+        if(!jaCancelada) {
+            indiceOcupacao.liberar(consulta);
+        }
     }
 }
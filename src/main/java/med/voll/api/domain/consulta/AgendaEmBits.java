@@ -0,0 +1,114 @@
+package med.voll.api.domain.consulta;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static med.voll.api.domain.consulta.validacoes.agendamento.ValidadorHorarioFuncionamentoClinica.HORA_ABERTURA;
+import static med.voll.api.domain.consulta.validacoes.agendamento.ValidadorHorarioFuncionamentoClinica.HORA_ULTIMA_CONSULTA;
+
+/**
+ * Horários ocupados dos médicos na grade da clínica (segunda a sábado, de hora em hora das 07h às 18h).
+ * Cada dia tem um BitSet por horário, com um bit por médico (na posição dada pela NumeracaoMedicos):
+ * conflito é um teste de bit e "médicos livres em T" é um andNot com os ativos da especialidade.
+ * Dias sem consultas não ocupam memória; com 50 mil médicos e 365 dias totalmente ocupados são cerca de 27 MB.
+ */
+class AgendaEmBits {
+
+    static final int HORARIOS_POR_DIA = HORA_ULTIMA_CONSULTA - HORA_ABERTURA + 1;
+
+    private final Map<LocalDate, BitSet[]> dias = new ConcurrentHashMap<>();
+
+    /**
+     * Horários fora da grade (ex: 10:30) não cabem nos bits e ficam a cargo de quem usa a agenda
+     */
+    static boolean naGrade(LocalDateTime data) {
+        return data.getDayOfWeek() != DayOfWeek.SUNDAY
+                && data.getHour() >= HORA_ABERTURA && data.getHour() <= HORA_ULTIMA_CONSULTA
+                && data.getMinute() == 0 && data.getSecond() == 0 && data.getNano() == 0;
+    }
+
+    void marcar(int medico, LocalDateTime data) {
+        var horario = dias.computeIfAbsent(data.toLocalDate(), dia -> novoDia())[posicao(data)];
+        synchronized (horario) {
+            horario.set(medico);
+        }
+    }
+
+    void desmarcar(int medico, LocalDateTime data) {
+        var horario = horario(data);
+        if (horario != null) {
+            synchronized (horario) {
+                horario.clear(medico);
+            }
+        }
+    }
+
+    boolean ocupado(int medico, LocalDateTime data) {
+        var horario = horario(data);
+        if (horario == null) {
+            return false;
+        }
+        synchronized (horario) {
+            return horario.get(medico);
+        }
+    }
+
+    /**
+     * Cópia dos médicos ocupados no horário, que pode ser combinada livremente pelo chamador
+     */
+    BitSet ocupados(LocalDateTime data) {
+        var horario = horario(data);
+        if (horario == null) {
+            return new BitSet();
+        }
+        synchronized (horario) {
+            return (BitSet) horario.clone();
+        }
+    }
+
+    /**
+     * Descarta os dias anteriores ao informado, que não recebem mais agendamentos
+     */
+    void descartarAntesDe(LocalDate inicio) {
+        dias.keySet().removeIf(dia -> dia.isBefore(inicio));
+    }
+
+    /**
+     * Quantidade de bits marcados a partir do dia informado, usada na verificação de consistência com o banco
+     */
+    long totalMarcados(LocalDate inicio) {
+        var total = 0L;
+        for (var dia : dias.entrySet()) {
+            if (dia.getKey().isBefore(inicio)) {
+                continue;
+            }
+            for (var horario : dia.getValue()) {
+                synchronized (horario) {
+                    total += horario.cardinality();
+                }
+            }
+        }
+        return total;
+    }
+
+    private BitSet horario(LocalDateTime data) {
+        var horarios = dias.get(data.toLocalDate());
+        return (horarios != null) ? horarios[posicao(data)] : null;
+    }
+
+    private static int posicao(LocalDateTime data) {
+        return data.getHour() - HORA_ABERTURA;
+    }
+
+    private static BitSet[] novoDia() {
+        var horarios = new BitSet[HORARIOS_POR_DIA];
+        for (int i = 0; i < HORARIOS_POR_DIA; i++) {
+            horarios[i] = new BitSet();
+        }
+        return horarios;
+    }
+}
@@ -0,0 +1,59 @@
+package med.voll.api.domain.consulta;
+
+import med.voll.api.domain.ValidacaoException;
+import med.voll.api.domain.consulta.validacoes.agendamento.ValidadorHorarioAntecedencia;
+import med.voll.api.domain.medico.DisponibilidadeMedicos;
+import med.voll.api.domain.medico.Especialidade;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+
+import static med.voll.api.domain.consulta.validacoes.agendamento.ValidadorHorarioFuncionamentoClinica.HORA_ABERTURA;
+import static med.voll.api.domain.consulta.validacoes.agendamento.ValidadorHorarioFuncionamentoClinica.HORA_ULTIMA_CONSULTA;
+
+/**
+ * Calendário de horários livres por especialidade, montado a partir dos índices em memória
+ * (médicos ativos da DisponibilidadeMedicos e horários ocupados do IndiceOcupacaoAgenda).
+ * Ambos são atualizados a cada cadastro, agendamento e cancelamento, então o calendário responde sem nenhuma consulta ao banco.
+ */
+@Component
+public class CalendarioDisponibilidade {
+
+    private static final int MAXIMO_DIAS_CONSULTADOS = 31;
+
+    @Autowired
+    private DisponibilidadeMedicos disponibilidadeMedicos;
+
+    public DadosDisponibilidade consultar(Especialidade especialidade, LocalDate de, LocalDate ate) {
+        if (ate.isBefore(de)) {
+            throw new ValidacaoException("Data final deve ser igual ou posterior à data inicial!");
+        }
+        if (ChronoUnit.DAYS.between(de, ate) >= MAXIMO_DIAS_CONSULTADOS) {
+            throw new ValidacaoException("Período consultado deve ter no máximo " + MAXIMO_DIAS_CONSULTADOS + " dias!");
+        }
+
+        var primeiroHorarioPossivel = LocalDateTime.now().plusMinutes(ValidadorHorarioAntecedencia.ANTECEDENCIA_MINIMA_MINUTOS);
+        var horarios = new ArrayList<DadosDisponibilidade.Horario>();
+        for (var dia = de; !dia.isAfter(ate); dia = dia.plusDays(1)) {
+            if (dia.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                continue;
+            }
+            for (int hora = HORA_ABERTURA; hora <= HORA_ULTIMA_CONSULTA; hora++) {
+                var data = dia.atTime(hora, 0);
+                if (data.isBefore(primeiroHorarioPossivel)) {
+                    continue;
+                }
+                var livres = disponibilidadeMedicos.totalLivres(especialidade, data);
+                if (livres > 0) {
+                    horarios.add(new DadosDisponibilidade.Horario(data, livres));
+                }
+            }
+        }
+        return new DadosDisponibilidade(especialidade, horarios);
+    }
+}
@@ -20,7 +20,8 @@ import java.time.LocalDateTime;
 public class Consulta {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "consultas_seq") //Ids alocados em blocos, permitindo inserts em lote (IDENTITY desativa o batch do Hibernate)
+    @SequenceGenerator(name = "consultas_seq", sequenceName = "consultas_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
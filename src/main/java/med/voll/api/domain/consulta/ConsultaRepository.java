@@ -2,12 +2,66 @@ package med.voll.api.domain.consulta;
 
 import jakarta.validation.constraints.NotNull;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface ConsultaRepository extends JpaRepository<Consulta, Long> {
 
     Boolean existsByMedicoIdAndDataAndMotivoCancelamentoIsNull(Long idMedico, LocalDateTime data);
 
     Boolean existsByPacienteIdAndDataBetween(@NotNull Long idPaciente, LocalDateTime primeiroHorario, LocalDateTime ultimoHorario);
+
+    // Carrega apenas as colunas usadas pelo IndiceOcupacaoAgenda, sem instanciar as entidades
+    @Query("""
+            SELECT new med.voll.api.domain.consulta.DadosOcupacaoConsulta(c.id, c.medico.id, c.paciente.id, c.data) FROM Consulta c
+                WHERE c.data >= :inicio
+                AND c.motivoCancelamento IS NULL
+          """)
+    List<DadosOcupacaoConsulta> findOcupacaoAtivaAPartirDe(LocalDateTime inicio);
+
+    /**
+     * Consultas ativas dos médicos do lote nos horários do lote (combinações a mais são descartadas por quem chama),
+     * para validar os conflitos de horário de um agendamento em lote com uma única ida ao banco
+     */
+    @Query("""
+            SELECT new med.voll.api.domain.consulta.DadosOcupacaoConsulta(c.id, c.medico.id, c.paciente.id, c.data) FROM Consulta c
+                WHERE c.medico.id IN :idsMedicos
+                AND c.data IN :datas
+                AND c.motivoCancelamento IS NULL
+          """)
+    List<DadosOcupacaoConsulta> findOcupacaoAtivaDosMedicosNosHorarios(Collection<Long> idsMedicos, Collection<LocalDateTime> datas);
+
+    /**
+     * Consultas ativas dos pacientes do lote entre o primeiro e o último dia do lote (inicio inclusive, fim exclusive)
+     */
+    @Query("""
+            SELECT new med.voll.api.domain.consulta.DadosOcupacaoConsulta(c.id, c.medico.id, c.paciente.id, c.data) FROM Consulta c
+                WHERE c.paciente.id IN :idsPacientes
+                AND c.data >= :inicio
+                AND c.data < :fim
+                AND c.motivoCancelamento IS NULL
+          """)
+    List<DadosOcupacaoConsulta> findOcupacaoAtivaDosPacientesEntre(Collection<Long> idsPacientes, LocalDateTime inicio, LocalDateTime fim);
+
+    /**
+     * Status do paciente e do médico e conflitos de horário de uma só vez, para que o agendamento faça uma única ida ao banco.
+     * Vazio quando o paciente não existe
+     */
+    @Query("""
+            SELECT new med.voll.api.domain.consulta.DadosVerificacaoAgendamento(
+                    p.ativo,
+                    (SELECT m.ativo FROM Medico m WHERE m.id = :idMedico),
+                    CASE WHEN EXISTS (SELECT c.id FROM Consulta c
+                        WHERE c.medico.id = :idMedico AND c.data = :data AND c.motivoCancelamento IS NULL) THEN true ELSE false END,
+                    CASE WHEN EXISTS (SELECT c.id FROM Consulta c
+                        WHERE c.paciente.id = :idPaciente AND c.data BETWEEN :inicioDia AND :fimDia AND c.motivoCancelamento IS NULL) THEN true ELSE false END
+                )
+                FROM Paciente p
+                WHERE p.id = :idPaciente
+          """)
+    Optional<DadosVerificacaoAgendamento> verificarAgendamento(Long idPaciente, Long idMedico, LocalDateTime data, LocalDateTime inicioDia, LocalDateTime fimDia);
 }
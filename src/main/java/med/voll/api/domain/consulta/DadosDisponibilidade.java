@@ -0,0 +1,12 @@
+package med.voll.api.domain.consulta;
+
+import med.voll.api.domain.medico.Especialidade;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record DadosDisponibilidade(Especialidade especialidade, List<Horario> horarios) {
+
+    public record Horario(LocalDateTime data, int medicosLivres) {
+    }
+}
@@ -0,0 +1,13 @@
+package med.voll.api.domain.consulta;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projeção enxuta de uma consulta ativa: apenas o necessário para montar o índice de ocupação da agenda
+ */
+public record DadosOcupacaoConsulta(Long id, Long idMedico, Long idPaciente, LocalDateTime data) {
+
+    public DadosOcupacaoConsulta(Consulta consulta) {
+        this(consulta.getId(), consulta.getMedico().getId(), consulta.getPaciente().getId(), consulta.getData());
+    }
+}
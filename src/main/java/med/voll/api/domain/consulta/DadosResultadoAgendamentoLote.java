@@ -0,0 +1,24 @@
+package med.voll.api.domain.consulta;
+
+import java.util.List;
+
+/**
+ * Resultado do agendamento em lote: um item por consulta enviada, na mesma ordem, com a consulta agendada ou o erro de validação
+ */
+public record DadosResultadoAgendamentoLote(int agendadas, int rejeitadas, List<Item> itens) {
+
+    public DadosResultadoAgendamentoLote(List<Item> itens) {
+        this((int) itens.stream().filter(Item::sucesso).count(), (int) itens.stream().filter(item -> !item.sucesso()).count(), itens);
+    }
+
+    public record Item(int indice, boolean sucesso, DadosDetalhamentoConsulta consulta, String erro) {
+
+        public static Item agendada(int indice, Consulta consulta) {
+            return new Item(indice, true, new DadosDetalhamentoConsulta(consulta), null);
+        }
+
+        public static Item rejeitada(int indice, String erro) {
+            return new Item(indice, false, null, erro);
+        }
+    }
+}
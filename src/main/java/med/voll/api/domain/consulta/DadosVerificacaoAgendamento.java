@@ -0,0 +1,11 @@
+package med.voll.api.domain.consulta;
+
+/**
+ * Tudo o que o agendamento e seus validadores precisam saber do banco, obtido em uma única consulta
+ * (ConsultaRepository.verificarAgendamento). medicoAtivo é null quando o médico não foi informado ou não existe.
+ */
+public record DadosVerificacaoAgendamento(Boolean pacienteAtivo,
+                                          Boolean medicoAtivo,
+                                          boolean medicoOcupado,
+                                          boolean pacienteOcupadoNoDia) {
+}
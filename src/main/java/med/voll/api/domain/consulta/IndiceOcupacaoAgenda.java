@@ -0,0 +1,271 @@
+package med.voll.api.domain.consulta;
+
+import med.voll.api.domain.medico.NumeracaoMedicos;
+import med.voll.api.infra.transacao.ExecutorAposCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Índice em memória dos horários ocupados de cada médico e dos dias ocupados de cada paciente.
+ * É carregado da tabela consultas quando a aplicação sobe e atualizado a cada agendamento/cancelamento,
+ * permitindo que os validadores de conflito de horário respondam sem ir ao banco.
+ * Os horários da grade da clínica ficam em bits (AgendaEmBits), com um bit por médico em cada horário;
+ * apenas consultas fora da grade (ex: inseridas direto no banco às 10:30) ficam em um mapa à parte.
+ * O banco continua sendo a fonte da verdade: verificarConsistencia() compara o índice com a tabela e o reconstrói se divergir.
+ * A cada verificação os dias anteriores à janela (hoje em diante) são descartados, para que o índice não cresça durante todo
+ * o tempo em que a aplicação fica no ar.
+ * Enquanto o índice é reconstruído, as alterações feitas após o commit de agendamentos e cancelamentos continuam sendo
+ * aplicadas no índice atual e também guardadas, para serem reaplicadas no novo antes da troca: sem isso, uma consulta
+ * gravada depois da leitura da tabela e registrada no índice antigo se perderia na troca.
+ */
+@Component
+public class IndiceOcupacaoAgenda {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceOcupacaoAgenda.class);
+
+    @Autowired
+    private ConsultaRepository repository;
+
+    @Autowired
+    private NumeracaoMedicos numeracao;
+
+    private Clock relogio = Clock.systemDefaultZone();
+
+    private volatile Ocupacao ocupacao = new Ocupacao();
+
+    // Protege a troca do índice e a lista de alterações feitas durante uma reconstrução (null quando não há reconstrução)
+    private final Object trava = new Object();
+    private List<Consumer<Ocupacao>> alteracoesDuranteRecarga;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void carregar() {
+        iniciarRecarga();
+        try {
+            var consultas = repository.findOcupacaoAtivaAPartirDe(inicioDaJanela());
+            substituir(ocupacaoDe(consultas));
+            log.info("Índice de ocupação da agenda carregado com {} consultas", consultas.size());
+        } finally {
+            encerrarRecarga();
+        }
+    }
+
+    public boolean medicoOcupado(Long idMedico, LocalDateTime data) {
+        if (idMedico == null) {
+            return false;
+        }
+        return ocupacao.medicoOcupado(idMedico, data);
+    }
+
+    /**
+     * Médicos com consulta ativa exatamente no horário informado, como bits nas posições da NumeracaoMedicos.
+     * O BitSet devolvido é uma cópia e pode ser alterado pelo chamador
+     */
+    public BitSet medicosOcupados(LocalDateTime data) {
+        return ocupacao.medicosOcupados(data);
+    }
+
+    public boolean pacienteOcupadoNoDia(Long idPaciente, LocalDate dia) {
+        var dias = ocupacao.diasPorPaciente.get(idPaciente);
+        return dias != null && dias.containsKey(dia);
+    }
+
+    /**
+     * Registra a consulta no índice somente após o commit, para que um rollback não deixe ocupado um horário que não existe no banco
+     */
+    public void registrar(Consulta consulta) {
+        var dados = new DadosOcupacaoConsulta(consulta);
+        ExecutorAposCommit.executar(() -> aplicar(atual -> atual.adicionar(dados)));
+    }
+
+    public void liberar(Consulta consulta) {
+        var dados = new DadosOcupacaoConsulta(consulta);
+        ExecutorAposCommit.executar(() -> aplicar(atual -> atual.remover(dados)));
+    }
+
+    /**
+     * Compara o índice com a tabela consultas e o reconstrói caso exista divergência (ex: escrita feita por outra instância da API)
+     * @return true se o índice estava consistente com o banco
+     */
+    @Scheduled(fixedDelayString = "${api.agenda.indice.verificacao-ms:300000}", initialDelayString = "${api.agenda.indice.verificacao-ms:300000}")
+    public synchronized boolean verificarConsistencia() {
+        iniciarRecarga();
+        try {
+            var inicio = inicioDaJanela();
+            ocupacao.descartarAntesDe(inicio);
+            var consultas = repository.findOcupacaoAtivaAPartirDe(inicio);
+            var esperado = ocupacaoDe(consultas);
+
+            if (ocupacao.consistenteCom(consultas, esperado, inicio)) {
+                return true;
+            }
+
+            log.warn("Índice de ocupação da agenda divergente do banco de dados, recarregando");
+            substituir(esperado);
+            return false;
+        } finally {
+            encerrarRecarga();
+        }
+    }
+
+    private void aplicar(Consumer<Ocupacao> alteracao) {
+        synchronized (trava) {
+            alteracao.accept(ocupacao);
+            if (alteracoesDuranteRecarga != null) {
+                alteracoesDuranteRecarga.add(alteracao);
+            }
+        }
+    }
+
+    // Começa a guardar as alterações antes de ler a tabela, para que nenhuma gravada depois da leitura fique de fora
+    private void iniciarRecarga() {
+        synchronized (trava) {
+            alteracoesDuranteRecarga = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Reaplica no novo índice as alterações feitas durante a reconstrução e o coloca no lugar do atual.
+     * Algumas delas podem já estar na leitura da tabela: por isso adicionar e remover são idempotentes (o paciente guarda
+     * os ids das consultas de cada dia e não um contador)
+     */
+    private void substituir(Ocupacao nova) {
+        synchronized (trava) {
+            alteracoesDuranteRecarga.forEach(alteracao -> alteracao.accept(nova));
+            this.ocupacao = nova;
+        }
+    }
+
+    private void encerrarRecarga() {
+        synchronized (trava) {
+            alteracoesDuranteRecarga = null;
+        }
+    }
+
+    private Ocupacao ocupacaoDe(Collection<DadosOcupacaoConsulta> consultas) {
+        var nova = new Ocupacao();
+        consultas.forEach(nova::adicionar);
+        return nova;
+    }
+
+    // Consultas passadas não interessam, pois só é possível agendar em datas futuras
+    private LocalDateTime inicioDaJanela() {
+        return LocalDate.now(relogio).atStartOfDay();
+    }
+
+    /**
+     * Estrutura interna do índice. Pacientes guardam os ids das consultas de cada dia pois podem existir consultas no mesmo dia vindas de fora da API
+     */
+    private class Ocupacao {
+
+        private final AgendaEmBits grade = new AgendaEmBits();
+        private final Map<LocalDateTime, Set<Long>> foraDaGrade = new ConcurrentHashMap<>();
+        private final Map<Long, Map<LocalDate, Set<Long>>> diasPorPaciente = new ConcurrentHashMap<>();
+
+        private boolean medicoOcupado(Long idMedico, LocalDateTime data) {
+            if (AgendaEmBits.naGrade(data)) {
+                return grade.ocupado(numeracao.numero(idMedico), data);
+            }
+            var medicos = foraDaGrade.get(data);
+            return medicos != null && medicos.contains(idMedico);
+        }
+
+        private BitSet medicosOcupados(LocalDateTime data) {
+            if (AgendaEmBits.naGrade(data)) {
+                return grade.ocupados(data);
+            }
+            var ocupados = new BitSet();
+            foraDaGrade.getOrDefault(data, Set.of()).forEach(id -> ocupados.set(numeracao.numero(id)));
+            return ocupados;
+        }
+
+        private void descartarAntesDe(LocalDateTime inicio) {
+            grade.descartarAntesDe(inicio.toLocalDate());
+            foraDaGrade.keySet().removeIf(data -> data.isBefore(inicio));
+            diasPorPaciente.forEach((id, dias) -> {
+                dias.keySet().removeIf(dia -> dia.isBefore(inicio.toLocalDate()));
+                diasPorPaciente.computeIfPresent(id, (i, atuais) -> atuais.isEmpty() ? null : atuais); //Atômico com o computeIfAbsent de adicionar()
+            });
+        }
+
+        private void adicionar(DadosOcupacaoConsulta dados) {
+            if (AgendaEmBits.naGrade(dados.data())) {
+                grade.marcar(numeracao.numero(dados.idMedico()), dados.data());
+            } else {
+                // compute() é atômico por chave, evitando perder a inclusão enquanto remover() descarta um conjunto vazio
+                foraDaGrade.compute(dados.data(), (data, medicos) -> {
+                    var ocupados = (medicos != null) ? medicos : ConcurrentHashMap.<Long>newKeySet();
+                    ocupados.add(dados.idMedico());
+                    return ocupados;
+                });
+            }
+            diasPorPaciente.computeIfAbsent(dados.idPaciente(), id -> new ConcurrentHashMap<>()).compute(dados.data().toLocalDate(), (dia, consultas) -> {
+                var ids = (consultas != null) ? consultas : ConcurrentHashMap.<Long>newKeySet();
+                ids.add(dados.id());
+                return ids;
+            });
+        }
+
+        private void remover(DadosOcupacaoConsulta dados) {
+            if (AgendaEmBits.naGrade(dados.data())) {
+                grade.desmarcar(numeracao.numero(dados.idMedico()), dados.data());
+            } else {
+                foraDaGrade.computeIfPresent(dados.data(), (data, medicos) -> {
+                    medicos.remove(dados.idMedico());
+                    return medicos.isEmpty() ? null : medicos;
+                });
+            }
+            var dias = diasPorPaciente.get(dados.idPaciente());
+            if (dias != null) {
+                dias.computeIfPresent(dados.data().toLocalDate(), (dia, consultas) -> {
+                    consultas.remove(dados.id());
+                    return consultas.isEmpty() ? null : consultas;
+                });
+            }
+        }
+
+        /**
+         * Os horários dos médicos batem quando todas as consultas do banco estão marcadas e não há marcações a mais
+         * (mesma quantidade, já que o banco não permite duas consultas ativas do mesmo médico no mesmo horário)
+         */
+        private boolean consistenteCom(Collection<DadosOcupacaoConsulta> consultas, Ocupacao esperado, LocalDateTime inicio) {
+            for (var consulta : consultas) {
+                if (!medicoOcupado(consulta.idMedico(), consulta.data())) {
+                    return false;
+                }
+            }
+            var marcados = grade.totalMarcados(inicio.toLocalDate()) + foraDaGrade.entrySet().stream()
+                    .filter(horario -> !horario.getKey().isBefore(inicio))
+                    .mapToLong(horario -> horario.getValue().size())
+                    .sum();
+            return marcados == consultas.size() && esperado.diasPorPaciente.equals(diasPorPacienteAPartirDe(inicio.toLocalDate()));
+        }
+
+        private Map<Long, Map<LocalDate, Set<Long>>> diasPorPacienteAPartirDe(LocalDate inicio) {
+            var copia = new HashMap<Long, Map<LocalDate, Set<Long>>>();
+            diasPorPaciente.forEach((id, dias) -> dias.forEach((dia, consultas) -> {
+                if (!dia.isBefore(inicio)) {
+                    copia.computeIfAbsent(id, i -> new HashMap<>()).put(dia, Set.copyOf(consultas));
+                }
+            }));
+            return copia;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package med.voll.api.domain.consulta.validacoes.agendamento;
+
+import med.voll.api.domain.consulta.DadosAgendamentoConsulta;
+import med.voll.api.domain.consulta.DadosVerificacaoAgendamento;
+import med.voll.api.infra.metricas.MetricasValidacao;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Executa os validadores de agendamento um a um, na ordem em que foram injetados, parando no primeiro erro.
+ * Todos respondem em memória (horário de funcionamento, antecedência) ou a partir da DadosVerificacaoAgendamento
+ * já buscada, então rodam na thread e na transação de quem chamou, sem usar outras conexões do pool.
+ * Novos validadores continuam sendo apenas um @Component que implementa ValidadorAgendamentoDeConsulta.
+ * Cada validação é medida individualmente pela MetricasValidacao.
+ */
+@Component
+public class PipelineValidacaoAgendamento {
+
+    private final List<ValidadorAgendamentoDeConsulta> validadores;
+    private final MetricasValidacao metricas;
+
+    public PipelineValidacaoAgendamento(List<ValidadorAgendamentoDeConsulta> validadores, MetricasValidacao metricas) {
+        this.validadores = List.copyOf(validadores);
+        this.metricas = metricas;
+    }
+
+    public void validar(DadosAgendamentoConsulta dados, DadosVerificacaoAgendamento verificacao) {
+        validadores.forEach(validador -> metricas.medir(MetricasValidacao.AGENDAMENTO, validador, () -> validador.validar(dados, verificacao)));
+    }
+
+    /**
+     * Os validadores na ordem em que o pipeline os executa (usado pelo agendamento em lote, que valida um validador por vez)
+     */
+    public List<ValidadorAgendamentoDeConsulta> validadores() {
+        return validadores;
+    }
+}
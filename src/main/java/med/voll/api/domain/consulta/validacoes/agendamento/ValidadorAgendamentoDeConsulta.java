@@ -1,8 +1,39 @@
 package med.voll.api.domain.consulta.validacoes.agendamento;
 
+import med.voll.api.domain.ValidacaoException;
 import med.voll.api.domain.consulta.DadosAgendamentoConsulta;
+import med.voll.api.domain.consulta.DadosVerificacaoAgendamento;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public interface ValidadorAgendamentoDeConsulta {
 
     void validar(DadosAgendamentoConsulta dados);
+
+    /**
+     * Valida usando os dados já buscados por ConsultaRepository.verificarAgendamento, a única consulta ao banco do agendamento.
+     * Por padrão ignora a verificação e chama validar(dados); validadores que dependem do banco sobrescrevem para não fazer a própria consulta
+     */
+    default void validar(DadosAgendamentoConsulta dados, DadosVerificacaoAgendamento verificacao) {
+        validar(dados);
+    }
+
+    /**
+     * Valida um lote de agendamentos. Por padrão chama validar() item a item;
+     * validadores que consultam o banco sobrescrevem para fazer uma única consulta para o lote inteiro.
+     * @return mensagens de erro indexadas pela posição do item no lote (itens válidos não aparecem)
+     */
+    default Map<Integer, String> validarLote(List<DadosAgendamentoConsulta> lote) {
+        var erros = new HashMap<Integer, String>();
+        for (int i = 0; i < lote.size(); i++) {
+            try {
+                validar(lote.get(i));
+            } catch (ValidacaoException ex) {
+                erros.put(i, ex.getMessage());
+            }
+        }
+        return erros;
+    }
 }
@@ -10,12 +10,14 @@ import java.time.LocalDateTime;
 @Component("ValidadorHorarioAntecedenciaAgendamento")
 public class ValidadorHorarioAntecedencia implements ValidadorAgendamentoDeConsulta {
 
+    public static final int ANTECEDENCIA_MINIMA_MINUTOS = 30;
+
     public void validar(DadosAgendamentoConsulta dados) {
         var dataConsulta = dados.data();
         var agora = LocalDateTime.now();
         var diferencaEmMinutos = Duration.between(agora, dataConsulta).toMinutes();
 
-        if(diferencaEmMinutos < 30) {
+        if(diferencaEmMinutos < ANTECEDENCIA_MINIMA_MINUTOS) {
             throw new ValidacaoException("Consulta deve ser agendada com antecedência de no mínimo 30 minutos!");
         }
     }
@@ -9,11 +9,15 @@ import java.time.DayOfWeek;
 @Component
 public class ValidadorHorarioFuncionamentoClinica implements ValidadorAgendamentoDeConsulta {
 
+    // Segunda a sábado, com consultas começando entre 07:00 e 18:00 (também usado pelo CalendarioDisponibilidade)
+    public static final int HORA_ABERTURA = 7;
+    public static final int HORA_ULTIMA_CONSULTA = 18;
+
     public void validar(DadosAgendamentoConsulta dados) {
         var dataConsulta = dados.data();
         var domingo = dataConsulta.getDayOfWeek().equals(DayOfWeek.SUNDAY);
-        var antesDaAberturaDaClinica = dataConsulta.getHour() < 7;
-        var depoisDoEncerramentoDaClinica = dataConsulta.getHour() > 18;
+        var antesDaAberturaDaClinica = dataConsulta.getHour() < HORA_ABERTURA;
+        var depoisDoEncerramentoDaClinica = dataConsulta.getHour() > HORA_ULTIMA_CONSULTA;
         if(domingo || antesDaAberturaDaClinica || depoisDoEncerramentoDaClinica) {
             throw new ValidacaoException("Consulta fora do horário de funcionamento da clinica!");
         }
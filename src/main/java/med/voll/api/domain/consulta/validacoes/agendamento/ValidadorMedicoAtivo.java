@@ -2,13 +2,24 @@ package med.voll.api.domain.consulta.validacoes.agendamento;
 
 import med.voll.api.domain.ValidacaoException;
 import med.voll.api.domain.consulta.DadosAgendamentoConsulta;
+import med.voll.api.domain.consulta.DadosVerificacaoAgendamento;
 import med.voll.api.domain.medico.MedicoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 @Component
 public class ValidadorMedicoAtivo implements ValidadorAgendamentoDeConsulta {
 
+    private static final String MENSAGEM = "Consulta não pode ser agendada com médico inativo!";
+
     @Autowired
     private MedicoRepository repository;
 
@@ -20,7 +31,29 @@ public class ValidadorMedicoAtivo implements ValidadorAgendamentoDeConsulta {
 
         var medicoEstaAtivo = repository.findAtivoById(dados.idMedico());
         if(!medicoEstaAtivo) {
-            throw new ValidacaoException("Consulta não pode ser agendada com médico inativo!");
+            throw new ValidacaoException(MENSAGEM);
+        }
+    }
+
+    @Override
+    public void validar(DadosAgendamentoConsulta dados, DadosVerificacaoAgendamento verificacao) {
+        if(dados.idMedico() != null && !Boolean.TRUE.equals(verificacao.medicoAtivo())) {
+            throw new ValidacaoException(MENSAGEM);
+        }
+    }
+
+    @Override
+    public Map<Integer, String> validarLote(List<DadosAgendamentoConsulta> lote) {
+        var ids = lote.stream().map(DadosAgendamentoConsulta::idMedico).filter(Objects::nonNull).collect(Collectors.toSet());
+        var ativos = ids.isEmpty() ? Set.<Long>of() : new HashSet<>(repository.findIdsAtivos(ids)); //Uma consulta para todos os médicos do lote
+
+        var erros = new HashMap<Integer, String>();
+        for (int i = 0; i < lote.size(); i++) {
+            var idMedico = lote.get(i).idMedico();
+            if (idMedico != null && !ativos.contains(idMedico)) {
+                erros.put(i, MENSAGEM);
+            }
         }
+        return erros;
     }
 }
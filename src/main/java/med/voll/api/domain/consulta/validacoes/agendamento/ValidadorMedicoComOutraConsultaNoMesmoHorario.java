@@ -3,21 +3,80 @@ package med.voll.api.domain.consulta.validacoes.agendamento;
 import med.voll.api.domain.ValidacaoException;
 import med.voll.api.domain.consulta.ConsultaRepository;
 import med.voll.api.domain.consulta.DadosAgendamentoConsulta;
+import med.voll.api.domain.consulta.DadosVerificacaoAgendamento;
+import med.voll.api.domain.consulta.IndiceOcupacaoAgenda;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 @Component
 public class ValidadorMedicoComOutraConsultaNoMesmoHorario implements ValidadorAgendamentoDeConsulta {
 
+    public static final String MENSAGEM = "Médico já possui outra consulta agendada nesse mesmo horário";
+
+    @Autowired
+    private IndiceOcupacaoAgenda indice;
+
     @Autowired
     private ConsultaRepository repository;
 
     public void validar(DadosAgendamentoConsulta dados) {
-        // Validando no banco se existe uma consulta para o médido nesse id e nessa data e sem motivo de cancelamento (Se existir motivo de cancelamento, pode agendar)
-        var medicoPossuiOutraConsultaNoMesmoHorario = repository.existsByMedicoIdAndDataAndMotivoCancelamentoIsNull(dados.idMedico(), dados.data());
+        // Consultando no índice de ocupação se existe uma consulta para o médico nessa data e sem motivo de cancelamento (Se existir motivo de cancelamento, pode agendar)
+        var medicoPossuiOutraConsultaNoMesmoHorario = indice.medicoOcupado(dados.idMedico(), dados.data());
 
         if(medicoPossuiOutraConsultaNoMesmoHorario) {
-            throw new ValidacaoException("Médico já possui outra consulta agendada nesse mesmo horário");
+            throw new ValidacaoException(MENSAGEM);
+        }
+    }
+
+    @Override
+    public void validar(DadosAgendamentoConsulta dados, DadosVerificacaoAgendamento verificacao) {
+        if(verificacao.medicoOcupado()) {
+            throw new ValidacaoException(MENSAGEM);
         }
     }
+
+    /**
+     * O índice em memória pode estar desatualizado em relação a outras instâncias da API, então ele só adianta a rejeição
+     * dos horários que já conhece: os demais são conferidos no banco, com uma única consulta para o lote inteiro
+     */
+    @Override
+    public Map<Integer, String> validarLote(List<DadosAgendamentoConsulta> lote) {
+        var erros = new HashMap<Integer, String>();
+        var pendentes = new ArrayList<Integer>();
+        for (int i = 0; i < lote.size(); i++) {
+            var dados = lote.get(i);
+            if (dados.idMedico() == null) {
+                continue; //Médico escolhido depois, entre os livres no horário
+            }
+            if (indice.medicoOcupado(dados.idMedico(), dados.data())) {
+                erros.put(i, MENSAGEM);
+            } else {
+                pendentes.add(i);
+            }
+        }
+        if (pendentes.isEmpty()) {
+            return erros;
+        }
+
+        var idsMedicos = pendentes.stream().map(i -> lote.get(i).idMedico()).collect(Collectors.toSet());
+        var datas = pendentes.stream().map(i -> lote.get(i).data()).collect(Collectors.toSet());
+        var ocupados = repository.findOcupacaoAtivaDosMedicosNosHorarios(idsMedicos, datas).stream()
+                .map(consulta -> new HorarioDoMedico(consulta.idMedico(), consulta.data()))
+                .collect(Collectors.toSet());
+        for (var i : pendentes) {
+            if (ocupados.contains(new HorarioDoMedico(lote.get(i).idMedico(), lote.get(i).data()))) {
+                erros.put(i, MENSAGEM);
+            }
+        }
+        return erros;
+    }
+
+    private record HorarioDoMedico(Long idMedico, LocalDateTime data) {}
 }
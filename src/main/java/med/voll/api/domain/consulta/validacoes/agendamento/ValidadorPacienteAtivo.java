@@ -2,20 +2,50 @@ package med.voll.api.domain.consulta.validacoes.agendamento;
 
 import med.voll.api.domain.ValidacaoException;
 import med.voll.api.domain.consulta.DadosAgendamentoConsulta;
+import med.voll.api.domain.consulta.DadosVerificacaoAgendamento;
 import med.voll.api.domain.paciente.PacienteRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 @Component
 public class ValidadorPacienteAtivo implements ValidadorAgendamentoDeConsulta {
 
+    private static final String MENSAGEM = "Consulta nao pode ser agendada com paciente inativo!";
+
     @Autowired
     private PacienteRepository repository;
 
     public void validar(DadosAgendamentoConsulta dados) {
         var pacienteEstaAtivo = repository.findAtivoById(dados.idPaciente());
         if(!pacienteEstaAtivo) {
-            throw new ValidacaoException("Consulta nao pode ser agendada com paciente inativo!");
+            throw new ValidacaoException(MENSAGEM);
+        }
+    }
+
+    @Override
+    public void validar(DadosAgendamentoConsulta dados, DadosVerificacaoAgendamento verificacao) {
+        if(!Boolean.TRUE.equals(verificacao.pacienteAtivo())) {
+            throw new ValidacaoException(MENSAGEM);
+        }
+    }
+
+    @Override
+    public Map<Integer, String> validarLote(List<DadosAgendamentoConsulta> lote) {
+        var ids = lote.stream().map(DadosAgendamentoConsulta::idPaciente).collect(Collectors.toSet());
+        var ativos = new HashSet<>(repository.findIdsAtivos(ids)); //Uma consulta para todos os pacientes do lote
+
+        var erros = new HashMap<Integer, String>();
+        for (int i = 0; i < lote.size(); i++) {
+            if (!ativos.contains(lote.get(i).idPaciente())) {
+                erros.put(i, MENSAGEM);
+            }
         }
+        return erros;
     }
 }
@@ -3,21 +3,78 @@ package med.voll.api.domain.consulta.validacoes.agendamento;
 import med.voll.api.domain.ValidacaoException;
 import med.voll.api.domain.consulta.ConsultaRepository;
 import med.voll.api.domain.consulta.DadosAgendamentoConsulta;
+import med.voll.api.domain.consulta.DadosVerificacaoAgendamento;
+import med.voll.api.domain.consulta.IndiceOcupacaoAgenda;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 @Component
 public class ValidadorPacienteSemOutraConsultaNoDia implements ValidadorAgendamentoDeConsulta {
 
+    public static final String MENSAGEM = "Paciente ja possui outra consulta agendada nesse dia";
+
+    @Autowired
+    private IndiceOcupacaoAgenda indice;
+
     @Autowired
     private ConsultaRepository repository;
 
     public void validar(DadosAgendamentoConsulta dados) {
-        var primeiroHorario = dados.data().withHour(7);
-        var ultimoHorario = dados.data().withHour(18);
-        var pacientePossuiOutraConsultaNoDia = repository.existsByPacienteIdAndDataBetween(dados.idPaciente(), primeiroHorario, ultimoHorario);
+        var pacientePossuiOutraConsultaNoDia = indice.pacienteOcupadoNoDia(dados.idPaciente(), dados.data().toLocalDate());
         if(pacientePossuiOutraConsultaNoDia) {
-            throw new ValidacaoException("Paciente ja possui outra consulta agendada nesse dia");
+            throw new ValidacaoException(MENSAGEM);
+        }
+    }
+
+    @Override
+    public void validar(DadosAgendamentoConsulta dados, DadosVerificacaoAgendamento verificacao) {
+        if(verificacao.pacienteOcupadoNoDia()) {
+            throw new ValidacaoException(MENSAGEM);
         }
     }
+
+    /**
+     * Como no ValidadorMedicoComOutraConsultaNoMesmoHorario, o índice em memória só adianta a rejeição: nada no banco impede
+     * duas consultas do paciente no mesmo dia, então os demais itens são conferidos na tabela com uma única consulta
+     */
+    @Override
+    public Map<Integer, String> validarLote(List<DadosAgendamentoConsulta> lote) {
+        var erros = new HashMap<Integer, String>();
+        var pendentes = new ArrayList<Integer>();
+        for (int i = 0; i < lote.size(); i++) {
+            var dados = lote.get(i);
+            if (indice.pacienteOcupadoNoDia(dados.idPaciente(), dados.data().toLocalDate())) {
+                erros.put(i, MENSAGEM);
+            } else {
+                pendentes.add(i);
+            }
+        }
+        if (pendentes.isEmpty()) {
+            return erros;
+        }
+
+        var idsPacientes = pendentes.stream().map(i -> lote.get(i).idPaciente()).collect(Collectors.toSet());
+        var dias = pendentes.stream().map(i -> lote.get(i).data().toLocalDate()).toList();
+        var inicio = Collections.min(dias).atStartOfDay();
+        var fim = Collections.max(dias).plusDays(1).atStartOfDay();
+        var ocupados = repository.findOcupacaoAtivaDosPacientesEntre(idsPacientes, inicio, fim).stream()
+                .map(consulta -> new DiaDoPaciente(consulta.idPaciente(), consulta.data().toLocalDate()))
+                .collect(Collectors.toSet());
+        for (var i : pendentes) {
+            if (ocupados.contains(new DiaDoPaciente(lote.get(i).idPaciente(), lote.get(i).data().toLocalDate()))) {
+                erros.put(i, MENSAGEM);
+            }
+        }
+        return erros;
+    }
+
+    private record DiaDoPaciente(Long idPaciente, LocalDate dia) {}
 }
@@ -0,0 +1,241 @@
+package med.voll.api.domain.medico;
+
+import med.voll.api.domain.consulta.IndiceOcupacaoAgenda;
+import med.voll.api.infra.transacao.ExecutorAposCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Mantém em memória os médicos ativos de cada especialidade, como bits nas posições da NumeracaoMedicos,
+ * e sorteia um médico livre em um horário sem ordenar nem copiar os médicos da especialidade a cada agendamento.
+ * O sorteio é por rejeição: escolhe um ativo ao acaso (k-ésimo bit, em O(log n) pelas contagens acumuladas das palavras
+ * de 64 bits) e o aceita se estiver livre no IndiceOcupacaoAgenda. Só quando a especialidade está quase toda ocupada
+ * no horário, e as tentativas se esgotam, os livres são contados palavra a palavra (ativos andNot ocupados).
+ * Como no IndiceOcupacaoAgenda, as atualizações feitas durante uma recarga são reaplicadas no novo mapa antes da troca.
+ */
+@Component
+public class DisponibilidadeMedicos {
+
+    private static final Logger log = LoggerFactory.getLogger(DisponibilidadeMedicos.class);
+
+    // Com metade dos médicos ocupados, a chance de 8 sorteios seguidos caírem em ocupados é de 1 em 256
+    private static final int TENTATIVAS_SORTEIO = 8;
+
+    @Autowired
+    private MedicoRepository repository;
+
+    @Autowired
+    private IndiceOcupacaoAgenda indiceOcupacao;
+
+    @Autowired
+    private NumeracaoMedicos numeracao;
+
+    private volatile Map<Especialidade, BitSet> ativosPorEspecialidade = novoMapa();
+
+    // Cópia imutável dos ativos usada no sorteio, refeita apenas após uma alteração na especialidade
+    private final Map<Especialidade, Ativos> instantaneos = new ConcurrentHashMap<>();
+
+    // Protege a troca do mapa e a lista de atualizações feitas durante uma recarga (null quando não há recarga)
+    private final Object trava = new Object();
+    private List<Consumer<Map<Especialidade, BitSet>>> atualizacoesDuranteRecarga;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${api.agenda.indice.verificacao-ms:300000}", initialDelayString = "${api.agenda.indice.verificacao-ms:300000}")
+    public synchronized void carregar() {
+        synchronized (trava) {
+            atualizacoesDuranteRecarga = new ArrayList<>(); //Antes da leitura da tabela, para não perder nenhuma gravada depois dela
+        }
+        try {
+            var mapa = novoMapa();
+            var medicos = repository.findEspecialidadeDosAtivos();
+            medicos.forEach(m -> mapa.get(m.especialidade()).set(numeracao.numero(m.id())));
+            synchronized (trava) {
+                atualizacoesDuranteRecarga.forEach(atualizacao -> atualizacao.accept(mapa)); //Marcar ativo/inativo é idempotente
+                this.ativosPorEspecialidade = mapa;
+                instantaneos.clear();
+            }
+            log.info("Disponibilidade de médicos carregada com {} médicos ativos", medicos.size());
+        } finally {
+            synchronized (trava) {
+                atualizacoesDuranteRecarga = null;
+            }
+        }
+    }
+
+    /**
+     * Sorteia, com probabilidade uniforme, um médico ativo da especialidade que não tenha consulta no horário
+     * @return id do médico ou null se todos estiverem ocupados
+     */
+    public Long escolherMedicoAleatorioLivre(Especialidade especialidade, LocalDateTime data) {
+        return escolherMedicoAleatorioLivre(especialidade, data, Set.of());
+    }
+
+    /**
+     * Igual ao anterior, desconsiderando também os médicos informados (ex: já escolhidos para o mesmo horário em um agendamento em lote)
+     */
+    public Long escolherMedicoAleatorioLivre(Especialidade especialidade, LocalDateTime data, Set<Long> ignorados) {
+        var ativos = ativos(especialidade);
+        if (ativos.total() == 0) {
+            return null;
+        }
+
+        // Cada tentativa é uniforme entre os ativos, então o médico aceito é uniforme entre os livres
+        var aleatorio = ThreadLocalRandom.current();
+        for (int tentativa = 0; tentativa < TENTATIVAS_SORTEIO; tentativa++) {
+            var id = numeracao.id(ativos.selecionar(aleatorio.nextInt(ativos.total())));
+            if (!ignorados.contains(id) && !indiceOcupacao.medicoOcupado(id, data)) {
+                return id;
+            }
+        }
+
+        var ocupados = indiceOcupacao.medicosOcupados(data);
+        ignorados.forEach(id -> ocupados.set(numeracao.numero(id)));
+        var livres = ativos.menos(ocupados);
+        var total = Ativos.contar(livres);
+        return (total == 0) ? null : numeracao.id(Ativos.selecionar(livres, aleatorio.nextInt(total)));
+    }
+
+    /**
+     * Quantidade de médicos ativos da especialidade sem consulta no horário
+     */
+    public int totalLivres(Especialidade especialidade, LocalDateTime data) {
+        return Ativos.contar(ativos(especialidade).menos(indiceOcupacao.medicosOcupados(data)));
+    }
+
+    /**
+     * Chamado quando um médico é cadastrado ou atualizado, refletindo a mudança somente após o commit
+     */
+    public void atualizar(Medico medico) {
+        var id = medico.getId();
+        var especialidade = medico.getEspecialidade();
+        var ativo = Boolean.TRUE.equals(medico.getAtivo());
+        var numero = numeracao.numero(id);
+        Consumer<Map<Especialidade, BitSet>> atualizacao = mapa -> {
+            var ativos = mapa.get(especialidade);
+            synchronized (ativos) {
+                ativos.set(numero, ativo);
+                instantaneos.remove(especialidade); //Sob a mesma trava da criação da cópia, que não pode ser guardada já desatualizada
+            }
+        };
+        ExecutorAposCommit.executar(() -> {
+            synchronized (trava) {
+                atualizacao.accept(ativosPorEspecialidade);
+                if (atualizacoesDuranteRecarga != null) {
+                    atualizacoesDuranteRecarga.add(atualizacao);
+                }
+            }
+        });
+    }
+
+    /**
+     * A cópia guarda o BitSet de origem: uma feita a partir do mapa anterior a uma recarga é descartada e refeita
+     */
+    private Ativos ativos(Especialidade especialidade) {
+        var origem = ativosPorEspecialidade.get(especialidade);
+        var atual = instantaneos.get(especialidade);
+        if (atual != null && atual.origem() == origem) {
+            return atual;
+        }
+        synchronized (origem) {
+            var novo = Ativos.de(origem);
+            instantaneos.put(especialidade, novo);
+            return novo;
+        }
+    }
+
+    /**
+     * Palavras de 64 bits dos ativos e, para cada palavra, quantos ativos existem nas anteriores:
+     * o k-ésimo ativo é uma busca binária nas contagens mais uma busca dentro de uma única palavra
+     */
+    private record Ativos(BitSet origem, long[] palavras, int[] acumulado, int total) {
+
+        static Ativos de(BitSet origem) {
+            var palavras = origem.toLongArray();
+            var acumulado = new int[palavras.length];
+            var total = 0;
+            for (int i = 0; i < palavras.length; i++) {
+                acumulado[i] = total;
+                total += Long.bitCount(palavras[i]);
+            }
+            return new Ativos(origem, palavras, acumulado, total);
+        }
+
+        int selecionar(int k) {
+            var palavra = busca(k);
+            return palavra * Long.SIZE + bitNaPalavra(palavras[palavra], k - acumulado[palavra]);
+        }
+
+        long[] menos(BitSet ocupados) {
+            var livres = palavras.clone();
+            var palavrasOcupadas = ocupados.toLongArray();
+            for (int i = 0; i < Math.min(livres.length, palavrasOcupadas.length); i++) {
+                livres[i] &= ~palavrasOcupadas[i];
+            }
+            return livres;
+        }
+
+        static int contar(long[] palavras) {
+            var total = 0;
+            for (var palavra : palavras) {
+                total += Long.bitCount(palavra);
+            }
+            return total;
+        }
+
+        static int selecionar(long[] palavras, int k) {
+            for (int i = 0; i < palavras.length; i++) {
+                var bits = Long.bitCount(palavras[i]);
+                if (k < bits) {
+                    return i * Long.SIZE + bitNaPalavra(palavras[i], k);
+                }
+                k -= bits;
+            }
+            throw new IllegalArgumentException("Posição além do total de bits marcados: " + k);
+        }
+
+        // Última palavra cujo acumulado é menor ou igual a k
+        private int busca(int k) {
+            int inicio = 0, fim = acumulado.length - 1;
+            while (inicio < fim) {
+                var meio = (inicio + fim + 1) >>> 1;
+                if (acumulado[meio] <= k) {
+                    inicio = meio;
+                } else {
+                    fim = meio - 1;
+                }
+            }
+            return inicio;
+        }
+
+        private static int bitNaPalavra(long palavra, int k) {
+            for (int i = 0; i < k; i++) {
+                palavra &= palavra - 1; //Apaga o bit marcado mais baixo
+            }
+            return Long.numberOfTrailingZeros(palavra);
+        }
+    }
+
+    private static Map<Especialidade, BitSet> novoMapa() {
+        var mapa = new EnumMap<Especialidade, BitSet>(Especialidade.class);
+        for (Especialidade especialidade : Especialidade.values()) {
+            mapa.put(especialidade, new BitSet());
+        }
+        return mapa;
+    }
+}
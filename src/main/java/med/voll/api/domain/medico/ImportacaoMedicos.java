@@ -0,0 +1,58 @@
+package med.voll.api.domain.medico;
+
+import med.voll.api.domain.endereco.DadosEndereco;
+import med.voll.api.infra.importacao.DestinoImportacao;
+import med.voll.api.infra.importacao.VerificadorDuplicidade;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Importação de médicos. Colunas do CSV: nome,email,telefone,crm,especialidade,logradouro,bairro,cep,uf,cidade,complemento,numero
+ */
+@Component
+public class ImportacaoMedicos implements DestinoImportacao<DadosCadastroMedico> {
+
+    @Autowired
+    private MedicoRepository repository;
+
+    @Override
+    public Class<DadosCadastroMedico> tipo() {
+        return DadosCadastroMedico.class;
+    }
+
+    @Override
+    public DadosCadastroMedico deCsv(Map<String, String> colunas) {
+        var especialidade = colunas.get("especialidade");
+        return new DadosCadastroMedico(
+                colunas.get("nome"),
+                colunas.get("email"),
+                colunas.get("telefone"),
+                colunas.get("crm"),
+                (especialidade != null) ? Especialidade.fromString(especialidade) : null,
+                new DadosEndereco(
+                        colunas.get("logradouro"),
+                        colunas.get("bairro"),
+                        colunas.get("cep"),
+                        colunas.get("uf"),
+                        colunas.get("cidade"),
+                        colunas.get("complemento"),
+                        colunas.get("numero")));
+    }
+
+    @Override
+    public Map<Integer, String> duplicados(List<DadosCadastroMedico> lote) {
+        var erros = new HashMap<Integer, String>();
+        VerificadorDuplicidade.verificar(lote, DadosCadastroMedico::email, repository::findEmailsExistentes, "Email", erros);
+        VerificadorDuplicidade.verificar(lote, DadosCadastroMedico::crm, repository::findCrmsExistentes, "CRM", erros);
+        return erros;
+    }
+
+    @Override
+    public void salvar(List<DadosCadastroMedico> lote) {
+        repository.saveAll(lote.stream().map(Medico::new).toList());
+    }
+}
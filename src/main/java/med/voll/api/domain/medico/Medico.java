@@ -7,6 +7,9 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import med.voll.api.domain.endereco.Endereco;
+import med.voll.api.infra.cache.CacheConfigurations;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Table(name = "medicos")
 @Entity(name = "Medico")
@@ -14,10 +17,14 @@ import med.voll.api.domain.endereco.Endereco;
 @NoArgsConstructor
 @AllArgsConstructor
 @EqualsAndHashCode(of = "id") //Gerando hashcode só pro ID
+@EntityListeners(MedicoListener.class) //Mantém a DisponibilidadeMedicos atualizada a cada cadastro/alteração
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfigurations.REGIAO_MEDICOS) //Cache de segundo nível, atualizado a cada alteração feita pelo Hibernate
 public class Medico {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "medicos_seq") //Ids alocados em blocos, permitindo inserts em lote (IDENTITY desativa o batch do Hibernate)
+    @SequenceGenerator(name = "medicos_seq", sequenceName = "medicos_seq", allocationSize = 50)
     private Long id;
 
     private String nome;
@@ -33,6 +40,9 @@ public class Medico {
 
     private Boolean ativo;
 
+    @Version //Incrementada a cada alteração: usada no ETag do detalhamento e como trava otimista nas atualizações
+    private Long versao;
+
     public Medico(DadosCadastroMedico dados) {
         this.nome = dados.nome();
         this.email = dados.email();
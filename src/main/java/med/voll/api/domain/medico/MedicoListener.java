@@ -0,0 +1,25 @@
+package med.voll.api.domain.medico;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA da entidade Medico. Por ser um @Component, o Hibernate obtém a instância do Spring e os @Autowired funcionam
+ */
+@Component
+public class MedicoListener {
+
+    // ObjectProvider adia a busca do bean (o listener é criado junto com o EntityManagerFactory, antes dos demais componentes)
+    // e permite ignorar a atualização em contextos parciais, como o @DataJpaTest, onde a DisponibilidadeMedicos não existe
+    @Autowired
+    private ObjectProvider<DisponibilidadeMedicos> disponibilidade;
+
+    @PostPersist
+    @PostUpdate
+    public void atualizarDisponibilidade(Medico medico) {
+        disponibilidade.ifAvailable(d -> d.atualizar(medico));
+    }
+}
@@ -1,34 +1,76 @@
 package med.voll.api.domain.medico;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
-import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface MedicoRepository extends JpaRepository<Medico, Long> {
 
-    Page<Medico> findAllByAtivoTrue(Pageable paginacao);
+    // Projeções usadas pelas listagens e pelo detalhamento: selecionam apenas as colunas da resposta e devolvem DTOs,
+    // sem instanciar entidades gerenciadas (nada entra no contexto de persistência nem passa pelo dirty checking)
+    @Query(value = """
+            SELECT new med.voll.api.domain.medico.DadosListagemMedico(m.id, m.nome, m.email, m.crm, m.especialidade) FROM Medico m
+                WHERE m.ativo = true
+          """, countQuery = "SELECT count(m) FROM Medico m WHERE m.ativo = true")
+    Page<DadosListagemMedico> findListagemDosAtivos(Pageable paginacao);
+
+    @Query("""
+            SELECT new med.voll.api.domain.medico.DadosDetalhamentoMedico(m.id, m.nome, m.email, m.crm, m.telefone, m.especialidade, m.endereco) FROM Medico m
+                WHERE m.id = :id
+          """)
+    Optional<DadosDetalhamentoMedico> findDetalhamentoById(Long id);
 
-    // JPQL não identifica Booleanos com Integer, então lembre-se sempre de trocar 0 e 1 por false e true
+    // Usada pelo GET condicional: responde ao If-None-Match consultando só a versão, sem carregar o registro
+    @Query("SELECT m.versao FROM Medico m WHERE m.id = :id")
+    Long findVersaoById(Long id);
+
+    // Paginação por cursor (keyset): busca a partir da última posição (nome, id) devolvida, usando o índice (ativo, nome, id)
+    // O custo não cresce com a profundidade da página, ao contrário do OFFSET da paginação tradicional
     @Query("""
-            SELECT m FROM Medico m
+            SELECT new med.voll.api.domain.medico.DadosListagemMedico(m.id, m.nome, m.email, m.crm, m.especialidade) FROM Medico m
                 WHERE m.ativo = true
-                AND m.especialidade = :especialidade
-                AND m.id NOT IN (
-                    SELECT c.medico.id FROM Consulta c
-                        WHERE c.data = :data
-                        AND c.motivoCancelamento IS NULL
-                )
-                ORDER BY rand()
-                LIMIT 1
+                ORDER BY m.nome, m.id
           """)
-    Medico escolherMedicoAleatorioLivreNaData(Especialidade especialidade, LocalDateTime data);
+    List<DadosListagemMedico> findAtivosOrdenadosPorNome(Limit limite);
+
+    @Query("""
+            SELECT new med.voll.api.domain.medico.DadosListagemMedico(m.id, m.nome, m.email, m.crm, m.especialidade) FROM Medico m
+                WHERE m.ativo = true
+                AND (m.nome > :nome OR (m.nome = :nome AND m.id > :id))
+                ORDER BY m.nome, m.id
+          """)
+    List<DadosListagemMedico> findAtivosOrdenadosPorNomeApos(String nome, Long id, Limit limite);
+
+    long countByAtivoTrue();
 
     @Query("""
             SELECT m.ativo FROM Medico m
                 WHERE m.id = :id
           """)
     Boolean findAtivoById(Long id);
+
+    @Query("SELECT m.id FROM Medico m WHERE m.id IN :ids")
+    List<Long> findIdsExistentes(Collection<Long> ids);
+
+    @Query("SELECT m.id FROM Medico m WHERE m.id IN :ids AND m.ativo = true")
+    List<Long> findIdsAtivos(Collection<Long> ids);
+
+    // Usado para carregar a DisponibilidadeMedicos sem instanciar as entidades
+    @Query("""
+            SELECT new med.voll.api.domain.medico.DadosEspecialidadeMedico(m.id, m.especialidade) FROM Medico m
+                WHERE m.ativo = true
+          """)
+    List<DadosEspecialidadeMedico> findEspecialidadeDosAtivos();
+
+    @Query("SELECT m.email FROM Medico m WHERE m.email IN :emails")
+    List<String> findEmailsExistentes(Collection<String> emails);
+
+    @Query("SELECT m.crm FROM Medico m WHERE m.crm IN :crms")
+    List<String> findCrmsExistentes(Collection<String> crms);
 }
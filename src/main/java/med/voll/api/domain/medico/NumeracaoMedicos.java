@@ -0,0 +1,42 @@
+package med.voll.api.domain.medico;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Numera os médicos sequencialmente (0, 1, 2...) na ordem em que aparecem. O número é a posição do médico
+ * nos bitsets da agenda (IndiceOcupacaoAgenda) e da disponibilidade por especialidade (DisponibilidadeMedicos),
+ * permitindo cruzar os dois com operações bit a bit. Números nunca são reaproveitados.
+ */
+@Component
+public class NumeracaoMedicos {
+
+    private final Map<Long, Integer> numeros = new ConcurrentHashMap<>();
+    private volatile long[] ids = new long[1024];
+    private int total;
+
+    public int numero(Long id) {
+        var numero = numeros.get(id);
+        return (numero != null) ? numero : numerar(id);
+    }
+
+    public Long id(int numero) {
+        return ids[numero];
+    }
+
+    private synchronized int numerar(Long id) {
+        var existente = numeros.get(id);
+        if (existente != null) {
+            return existente;
+        }
+        if (total == ids.length) {
+            ids = Arrays.copyOf(ids, total * 2);
+        }
+        ids[total] = id;
+        numeros.put(id, total); //Publicado depois do id estar no array, então quem obtém o número sempre encontra o id
+        return total++;
+    }
+}
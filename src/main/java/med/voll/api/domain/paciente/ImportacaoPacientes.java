@@ -0,0 +1,56 @@
+package med.voll.api.domain.paciente;
+
+import med.voll.api.domain.endereco.DadosEndereco;
+import med.voll.api.infra.importacao.DestinoImportacao;
+import med.voll.api.infra.importacao.VerificadorDuplicidade;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Importação de pacientes. Colunas do CSV: nome,email,telefone,cpf,logradouro,bairro,cep,uf,cidade,complemento,numero
+ */
+@Component
+public class ImportacaoPacientes implements DestinoImportacao<DadosCadastroPaciente> {
+
+    @Autowired
+    private PacienteRepository repository;
+
+    @Override
+    public Class<DadosCadastroPaciente> tipo() {
+        return DadosCadastroPaciente.class;
+    }
+
+    @Override
+    public DadosCadastroPaciente deCsv(Map<String, String> colunas) {
+        return new DadosCadastroPaciente(
+                colunas.get("nome"),
+                colunas.get("email"),
+                colunas.get("telefone"),
+                colunas.get("cpf"),
+                new DadosEndereco(
+                        colunas.get("logradouro"),
+                        colunas.get("bairro"),
+                        colunas.get("cep"),
+                        colunas.get("uf"),
+                        colunas.get("cidade"),
+                        colunas.get("complemento"),
+                        colunas.get("numero")));
+    }
+
+    @Override
+    public Map<Integer, String> duplicados(List<DadosCadastroPaciente> lote) {
+        var erros = new HashMap<Integer, String>();
+        VerificadorDuplicidade.verificar(lote, DadosCadastroPaciente::email, repository::findEmailsExistentes, "Email", erros);
+        VerificadorDuplicidade.verificar(lote, DadosCadastroPaciente::cpf, repository::findCpfsExistentes, "CPF", erros);
+        return erros;
+    }
+
+    @Override
+    public void salvar(List<DadosCadastroPaciente> lote) {
+        repository.saveAll(lote.stream().map(Paciente::new).toList());
+    }
+}
@@ -7,6 +7,9 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import med.voll.api.domain.endereco.Endereco;
+import med.voll.api.infra.cache.CacheConfigurations;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Table(name = "pacientes")
 @Entity(name = "Paciente")
@@ -14,10 +17,13 @@ import med.voll.api.domain.endereco.Endereco;
 @NoArgsConstructor
 @AllArgsConstructor
 @EqualsAndHashCode(of = "id")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfigurations.REGIAO_PACIENTES) //Cache de segundo nível, atualizado a cada alteração feita pelo Hibernate
 public class Paciente {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pacientes_seq") //Ids alocados em blocos, permitindo inserts em lote (IDENTITY desativa o batch do Hibernate)
+    @SequenceGenerator(name = "pacientes_seq", sequenceName = "pacientes_seq", allocationSize = 50)
     private Long id;
     private String nome;
     private String email;
@@ -29,6 +35,9 @@ public class Paciente {
 
     private Boolean ativo;
 
+    @Version //Incrementada a cada alteração: usada no ETag do detalhamento e como trava otimista nas atualizações
+    private Long versao;
+
     public Paciente(DadosCadastroPaciente dados) {
         this.nome = dados.nome();
         this.email = dados.email();
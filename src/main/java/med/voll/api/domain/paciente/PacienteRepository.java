@@ -1,17 +1,69 @@
 package med.voll.api.domain.paciente;
 
 import jakarta.validation.constraints.NotNull;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 public interface PacienteRepository extends JpaRepository<Paciente, Long> {
-    Page<Paciente> findByAtivoTrue(Pageable paginacao);
+    // Projeções usadas pelas listagens e pelo detalhamento: selecionam apenas as colunas da resposta e devolvem DTOs,
+    // sem instanciar entidades gerenciadas (nada entra no contexto de persistência nem passa pelo dirty checking)
+    @Query(value = """
+            SELECT new med.voll.api.domain.paciente.DadosListagemPaciente(p.id, p.nome, p.email, p.cpf) FROM Paciente p
+                WHERE p.ativo = true
+          """, countQuery = "SELECT count(p) FROM Paciente p WHERE p.ativo = true")
+    Page<DadosListagemPaciente> findListagemDosAtivos(Pageable paginacao);
+
+    @Query("""
+            SELECT new med.voll.api.domain.paciente.DadosDetalhamentoPaciente(p.id, p.nome, p.email, p.telefone, p.cpf, p.endereco) FROM Paciente p
+                WHERE p.id = :id
+          """)
+    Optional<DadosDetalhamentoPaciente> findDetalhamentoById(Long id);
+
+    // Usada pelo GET condicional: responde ao If-None-Match consultando só a versão, sem carregar o registro
+    @Query("SELECT p.versao FROM Paciente p WHERE p.id = :id")
+    Long findVersaoById(Long id);
+
+    // Paginação por cursor (keyset): busca a partir da última posição (nome, id) devolvida, usando o índice (ativo, nome, id)
+    // O custo não cresce com a profundidade da página, ao contrário do OFFSET da paginação tradicional
+    @Query("""
+            SELECT new med.voll.api.domain.paciente.DadosListagemPaciente(p.id, p.nome, p.email, p.cpf) FROM Paciente p
+                WHERE p.ativo = true
+                ORDER BY p.nome, p.id
+          """)
+    List<DadosListagemPaciente> findAtivosOrdenadosPorNome(Limit limite);
+
+    @Query("""
+            SELECT new med.voll.api.domain.paciente.DadosListagemPaciente(p.id, p.nome, p.email, p.cpf) FROM Paciente p
+                WHERE p.ativo = true
+                AND (p.nome > :nome OR (p.nome = :nome AND p.id > :id))
+                ORDER BY p.nome, p.id
+          """)
+    List<DadosListagemPaciente> findAtivosOrdenadosPorNomeApos(String nome, Long id, Limit limite);
+
+    long countByAtivoTrue();
 
     @Query("""
         SELECT p.ativo FROM Paciente p
             WHERE p.id = :id
       """)
     Boolean findAtivoById(@NotNull Long id);
+
+    @Query("SELECT p.id FROM Paciente p WHERE p.id IN :ids")
+    List<Long> findIdsExistentes(Collection<Long> ids);
+
+    @Query("SELECT p.id FROM Paciente p WHERE p.id IN :ids AND p.ativo = true")
+    List<Long> findIdsAtivos(Collection<Long> ids);
+
+    @Query("SELECT p.email FROM Paciente p WHERE p.email IN :emails")
+    List<String> findEmailsExistentes(Collection<String> emails);
+
+    @Query("SELECT p.cpf FROM Paciente p WHERE p.cpf IN :cpfs")
+    List<String> findCpfsExistentes(Collection<String> cpfs);
 }
@@ -2,18 +2,31 @@ package med.voll.api.domain.usuario;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
-public class AutenticacaoService implements UserDetailsService {
+public class AutenticacaoService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UsuarioRepository repository;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return repository.findByLogin(username);
+        return repository.findDadosLoginByLogin(username)
+                .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado"));
+    }
+
+    /**
+     * Chamado pelo Spring Security após um login bem-sucedido quando o hash da senha foi gerado com outro custo de BCrypt
+     * (ver CodificadorSenhaBCrypt). A senha continua a mesma, então o update não passa pelo UsuarioListener e não revoga os tokens
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        var usuario = (DadosLoginUsuario) user;
+        repository.atualizarSenha(usuario.id(), newPassword);
+        return new DadosLoginUsuario(usuario.id(), usuario.login(), newPassword);
     }
 }
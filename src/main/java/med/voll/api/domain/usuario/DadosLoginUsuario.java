@@ -0,0 +1,77 @@
+package med.voll.api.domain.usuario;
+
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Projeção usada na autenticação: apenas as colunas necessárias para conferir a senha e gerar o token,
+ * sem instanciar a entidade Usuario nem colocá-la no contexto de persistência.
+ * Não é um record para que o Spring Security possa apagar o hash da senha depois do login (CredentialsContainer),
+ * e o toString não expõe a senha em logs
+ */
+public final class DadosLoginUsuario implements UserDetails, CredentialsContainer {
+
+    private final Long id;
+    private final String login;
+    private String senha;
+
+    public DadosLoginUsuario(Long id, String login, String senha) {
+        this.id = id;
+        this.login = login;
+        this.senha = senha;
+    }
+
+    public Long id() {
+        return id;
+    }
+
+    public String login() {
+        return login;
+    }
+
+    public String senha() {
+        return senha;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Usuario.PERFIS;
+    }
+
+    @Override
+    public String getPassword() {
+        return senha;
+    }
+
+    @Override
+    public String getUsername() {
+        return login;
+    }
+
+    /**
+     * Chamado pelo AuthenticationManager após a autenticação, já que o principal continua vivo na requisição
+     */
+    @Override
+    public void eraseCredentials() {
+        senha = null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof DadosLoginUsuario outro && Objects.equals(id, outro.id) && Objects.equals(login, outro.login);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, login);
+    }
+
+    @Override
+    public String toString() {
+        return "DadosLoginUsuario[id=" + id + ", login=" + login + "]";
+    }
+}
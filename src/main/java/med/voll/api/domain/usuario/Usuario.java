@@ -19,10 +19,14 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @EqualsAndHashCode(of = "id")
+@EntityListeners(UsuarioListener.class) //Revoga os tokens do usuário quando ele é alterado ou removido
 public class Usuario implements UserDetails { //Implementação necessária para Usar o Spring Security
 
+    // Todos os usuários possuem o mesmo perfil (não há coluna de perfis na tabela usuarios)
+    static final List<GrantedAuthority> PERFIS = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.IDENTITY) //Usuários são cadastrados um a um (inclusive direto no banco), então não há lote a ganhar com a sequence
     private Long id;
     private String login;
     private String senha;
@@ -35,7 +39,7 @@ public class Usuario implements UserDetails { //Implementação necessária para
      */
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return List.of(new SimpleGrantedAuthority("ROLE_USER"));
+        return PERFIS;
     }
 
     @Override
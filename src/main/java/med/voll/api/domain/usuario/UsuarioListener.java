@@ -0,0 +1,26 @@
+package med.voll.api.domain.usuario;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import med.voll.api.infra.security.ListaRevogacaoTokens;
+import med.voll.api.infra.transacao.ExecutorAposCommit;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA da entidade Usuario: revoga os tokens já emitidos para o usuário alterado ou excluído
+ */
+@Component
+public class UsuarioListener {
+
+    @Autowired
+    private ObjectProvider<ListaRevogacaoTokens> listaRevogacao;
+
+    @PostUpdate
+    @PostRemove
+    public void revogarTokens(Usuario usuario) {
+        var login = usuario.getLogin();
+        listaRevogacao.ifAvailable(lista -> ExecutorAposCommit.executar(() -> lista.revogarTokensDoUsuario(login)));
+    }
+}
@@ -1,9 +1,21 @@
 package med.voll.api.domain.usuario;
 
+import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
 
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 
-    UserDetails findByLogin(String login);
+    // Usa o índice único uk_usuarios_login (V15) e devolve só o necessário para autenticar
+    @Query("SELECT new med.voll.api.domain.usuario.DadosLoginUsuario(u.id, u.login, u.senha) FROM Usuario u WHERE u.login = :login")
+    Optional<DadosLoginUsuario> findDadosLoginByLogin(String login);
+
+    // Update direto (sem carregar a entidade), usado para refazer o hash da senha no login
+    @Modifying
+    @Transactional
+    @Query("UPDATE Usuario u SET u.senha = :senha WHERE u.id = :id")
+    void atualizarSenha(Long id, String senha);
 }
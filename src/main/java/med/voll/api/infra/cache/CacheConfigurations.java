@@ -0,0 +1,56 @@
+package med.voll.api.infra.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Cache de segundo nível do Hibernate (JCache sobre Caffeine) para as entidades Medico e Paciente.
+ * As regiões são criadas aqui, com tamanho e TTL vindos do application.properties, e o CacheManager é entregue ao Hibernate.
+ * Não há cache de queries: o agendamento lê tudo por ConsultaRepository.verificarAgendamento, que depende da data e não se repete.
+ */
+@Configuration
+public class CacheConfigurations {
+
+    public static final String REGIAO_MEDICOS = "medicos";
+    public static final String REGIAO_PACIENTES = "pacientes";
+
+    public static final List<String> REGIOES_ENTIDADES = List.of(REGIAO_MEDICOS, REGIAO_PACIENTES);
+
+    /**
+     * Cada contexto do Spring recebe o próprio CacheManager (URI única): o padrão do provider é compartilhado pela JVM,
+     * o que fazia um segundo contexto (comum nos testes) falhar ao recriar as regiões e o close() de um fechar o cache do outro
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager cacheManagerHibernate(@Value("${api.cache.hibernate.tamanho-maximo:10000}") long tamanhoMaximo,
+                                              @Value("${api.cache.hibernate.ttl:10m}") Duration ttl) {
+        var provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        var cacheManager = provider.getCacheManager(URI.create("vollmed-" + UUID.randomUUID()), provider.getDefaultClassLoader());
+        REGIOES_ENTIDADES.forEach(regiao -> cacheManager.createCache(regiao, configuracao(tamanhoMaximo, ttl)));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheSegundoNivel(CacheManager cacheManagerHibernate) {
+        return propriedades -> propriedades.put(ConfigSettings.CACHE_MANAGER, cacheManagerHibernate);
+    }
+
+    private CaffeineConfiguration<Object, Object> configuracao(long tamanhoMaximo, Duration ttl) {
+        var configuracao = new CaffeineConfiguration<>();
+        configuracao.setMaximumSize(OptionalLong.of(tamanhoMaximo));
+        configuracao.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        return configuracao;
+    }
+}
@@ -0,0 +1,15 @@
+package med.voll.api.infra.cache;
+
+import org.hibernate.stat.CacheRegionStatistics;
+
+import java.util.List;
+
+public record DadosEstatisticasCache(List<Regiao> regioes) {
+
+    public record Regiao(String nome, long acertos, long falhas, long gravacoes, long elementosEmMemoria) {
+
+        public Regiao(String nome, CacheRegionStatistics estatisticas) {
+            this(nome, estatisticas.getHitCount(), estatisticas.getMissCount(), estatisticas.getPutCount(), estatisticas.getElementCountInMemory());
+        }
+    }
+}
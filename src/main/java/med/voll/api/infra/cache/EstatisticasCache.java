@@ -0,0 +1,37 @@
+package med.voll.api.infra.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+
+/**
+ * Lê as estatísticas do cache de segundo nível coletadas pelo Hibernate (hibernate.generate_statistics).
+ * Exposta pelo actuator em GET /actuator/cachehibernate, só na porta de gerenciamento (management.server.port, interna)
+ */
+@Component
+@Endpoint(id = "cachehibernate")
+public class EstatisticasCache {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @ReadOperation
+    public DadosEstatisticasCache consultar() {
+        var estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        var regioes = new ArrayList<DadosEstatisticasCache.Regiao>();
+        CacheConfigurations.REGIOES_ENTIDADES.forEach(regiao ->
+                regioes.add(regiao(regiao, estatisticas.getDomainDataRegionStatistics(regiao))));
+        return new DadosEstatisticasCache(regioes);
+    }
+
+    // Sem estatísticas enquanto o Hibernate não tiver usado a região
+    private DadosEstatisticasCache.Regiao regiao(String nome, CacheRegionStatistics estatisticas) {
+        return (estatisticas != null) ? new DadosEstatisticasCache.Regiao(nome, estatisticas) : new DadosEstatisticasCache.Regiao(nome, 0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,110 @@
+package med.voll.api.infra.concorrencia;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import med.voll.api.infra.metricas.OrcamentoConsultasSql;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limita quantas requisições são processadas ao mesmo tempo quando o Tomcat usa threads virtuais.
+ * Com threads de plataforma o próprio pool do Tomcat (server.tomcat.threads.max) faz esse papel; com threads virtuais
+ * não há limite, e milhares de requisições disputariam as poucas conexões do Hikari até estourar o connection-timeout.
+ * As excedentes esperam até espera-maxima por uma vaga e, se não conseguirem, recebem 503 com Retry-After.
+ * Por padrão o limite é o tamanho do pool do Hikari (10 se não configurado), já que cada requisição usa no máximo uma conexão por vez.
+ * Só entram no limite os endpoints que usam o banco: os que declaram @OrcamentoConsultasSql(0) (respondidos pelos índices
+ * em memória, como GET /consultas/disponibilidade) não disputam conexões e passam direto, sem ocupar vagas.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Order(Ordered.HIGHEST_PRECEDENCE) //Recusa antes de qualquer outro trabalho (inclusive a verificação do token)
+public class LimiteRequisicoesFilter extends OncePerRequestFilter {
+
+    private final Semaphore vagas;
+    private final Duration esperaMaxima;
+    private final HandlerMapping handlerMapping;
+
+    public LimiteRequisicoesFilter(@Value("${api.concorrencia.max-requisicoes:${spring.datasource.hikari.maximum-pool-size:10}}") int maxRequisicoes,
+                                   @Value("${api.concorrencia.espera-maxima:1s}") Duration esperaMaxima,
+                                   @Qualifier("requestMappingHandlerMapping") HandlerMapping handlerMapping) {
+        this.vagas = new Semaphore(maxRequisicoes, true); //Justo: quem chegou antes é atendido antes
+        this.esperaMaxima = esperaMaxima;
+        this.handlerMapping = handlerMapping;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !usaBanco(request);
+    }
+
+    /**
+     * Resolve o endpoint antes do DispatcherServlet (o filtro roda antes dele e da verificação do token).
+     * Na dúvida (rota inexistente, método não suportado, handler que não é um método de controller) a requisição entra no limite.
+     */
+    private boolean usaBanco(HttpServletRequest request) {
+        var caminhoJaInterpretado = ServletRequestPathUtils.hasParsedRequestPath(request);
+        if (!caminhoJaInterpretado) {
+            ServletRequestPathUtils.parseAndCache(request); //Exigido pelo HandlerMapping; o DispatcherServlet interpreta de novo depois
+        }
+        try {
+            var cadeia = handlerMapping.getHandler(request);
+            if (cadeia != null && cadeia.getHandler() instanceof HandlerMethod metodo) {
+                var orcamento = metodo.getMethodAnnotation(OrcamentoConsultasSql.class);
+                return orcamento == null || orcamento.value() > 0;
+            }
+            return true;
+        } catch (Exception ex) {
+            return true;
+        } finally {
+            if (!caminhoJaInterpretado) {
+                ServletRequestPathUtils.clearParsedRequestPath(request);
+            }
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        boolean obteveVaga;
+        try {
+            obteveVaga = vagas.tryAcquire(esperaMaxima.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            obteveVaga = false;
+        }
+
+        if (!obteveVaga) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write("Servidor sobrecarregado, tente novamente em instantes");
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            vagas.release();
+        }
+    }
+
+    int vagasDisponiveis() {
+        return vagas.availablePermits();
+    }
+}
@@ -0,0 +1,60 @@
+package med.voll.api.infra.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ativada apenas quando há réplicas de leitura configuradas (api.datasource.replicas). Sem elas, o DataSource
+ * padrão do Spring Boot continua sendo usado e tudo vai para spring.datasource.url.
+ * As réplicas usam as mesmas credenciais e configurações do pool (spring.datasource.hikari.*) da primária.
+ */
+@Configuration
+@ConditionalOnProperty("api.datasource.replicas")
+public class DataSourceConfigurations {
+
+    // Pools das réplicas não são beans, então são fechados manualmente no desligamento da aplicação
+    private final List<HikariDataSource> replicas = new ArrayList<>();
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimaria(DataSourceProperties properties) {
+        var dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primaria");
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource dataSourcePrimaria, @Value("${api.datasource.replicas}") List<String> urlsReplicas) {
+        for (int i = 0; i < urlsReplicas.size(); i++) {
+            var configuracao = new HikariConfig();
+            dataSourcePrimaria.copyStateTo(configuracao);
+            configuracao.setJdbcUrl(urlsReplicas.get(i).trim());
+            configuracao.setPoolName("replica-" + i);
+            configuracao.setReadOnly(true);
+            replicas.add(new HikariDataSource(configuracao));
+        }
+
+        var roteada = new DataSourceRoteada(dataSourcePrimaria, replicas);
+        roteada.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(roteada);
+    }
+
+    @PreDestroy
+    void fecharReplicas() {
+        replicas.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,42 @@
+package med.voll.api.infra.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Envia as transações somente leitura para as réplicas (alternando entre elas) e todo o resto para a primária.
+ * Precisa ficar atrás de um LazyConnectionDataSourceProxy: a conexão só pode ser escolhida depois que a transação
+ * já foi marcada como read-only, o que acontece após o JpaTransactionManager pedir a conexão.
+ */
+public class DataSourceRoteada extends AbstractRoutingDataSource {
+
+    private static final String PRIMARIA = "primaria";
+    private static final String REPLICA = "replica-";
+
+    private final int totalReplicas;
+    private final AtomicInteger proximaReplica = new AtomicInteger();
+
+    public DataSourceRoteada(DataSource primaria, List<? extends DataSource> replicas) {
+        var destinos = new HashMap<Object, Object>();
+        destinos.put(PRIMARIA, primaria);
+        for (int i = 0; i < replicas.size(); i++) {
+            destinos.put(REPLICA + i, replicas.get(i));
+        }
+        this.totalReplicas = replicas.size();
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primaria);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (totalReplicas == 0 || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARIA;
+        }
+        return REPLICA + Math.floorMod(proximaReplica.getAndIncrement(), totalReplicas);
+    }
+}
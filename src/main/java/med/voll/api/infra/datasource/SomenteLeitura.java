@@ -0,0 +1,20 @@
+package med.voll.api.infra.datasource;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Transação somente leitura para os caminhos de consulta (GETs).
+ * O Hibernate abre a sessão como read-only e com FlushMode.MANUAL (sem snapshots nem dirty checking)
+ * e, quando há réplicas configuradas, a DataSourceRoteada envia as queries para uma delas.
+ * O jakarta.transaction.Transactional usado nas escritas não possui a opção readOnly, por isso a anotação do Spring.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Transactional(readOnly = true)
+public @interface SomenteLeitura {
+}
@@ -2,19 +2,26 @@ package med.voll.api.infra.exception;
 
 import jakarta.persistence.EntityNotFoundException;
 import med.voll.api.domain.ValidacaoException;
+import med.voll.api.infra.http.VersaoDesatualizadaException;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.sql.SQLTransientConnectionException;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  *  @RestControllerAdvice: define um controller gerenciado pelo próprio spring
@@ -72,6 +79,52 @@ public class TratadorDeErros {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Erro: " +ex.getLocalizedMessage());
     }
 
+    /**
+     * ObjectOptimisticLockingFailureException: o registro foi alterado por outra requisição desde que foi lido (coluna versao)
+     * @return status code 409
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity tratarErroConcorrencia() {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("Registro alterado por outra requisição, tente novamente");
+    }
+
+    /**
+     * VersaoDesatualizadaException: o If-Match da alteração não é o ETag da versão atual do registro
+     * @return status code 412, com o ETag atual
+     */
+    @ExceptionHandler(VersaoDesatualizadaException.class)
+    public ResponseEntity tratarErroPrecondicao(VersaoDesatualizadaException ex) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .eTag(ex.getEtagAtual())
+                .body(ex.getMessage());
+    }
+
+    /**
+     * RejectedExecutionException: pool dedicado (ex: ExecutorAutenticacao no login) sem vaga na fila
+     * @return status code 503, pedindo para o cliente tentar novamente em instantes
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity tratarErroSobrecarga() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Servidor sobrecarregado, tente novamente em instantes");
+    }
+
+    /**
+     * CannotCreateTransactionException / DataAccessResourceFailureException: sem conexão com o banco. Quando a causa é o
+     * connection-timeout do Hikari (pool esgotado) a situação é de sobrecarga, e não de erro da API
+     * @return status code 503 para pool esgotado, 500 para as demais falhas de conexão
+     */
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity tratarErroConexao(Exception ex) {
+        for (Throwable causa = ex; causa != null; causa = causa.getCause()) {
+            if (causa instanceof SQLTransientConnectionException) {
+                return tratarErroSobrecarga();
+            }
+        }
+        return tratarErro500(ex);
+    }
+
     @ExceptionHandler(ValidacaoException.class)
     public ResponseEntity tratarErroRegraDeNegocio(ValidacaoException ex) {
         return ResponseEntity.badRequest().body(ex.getMessage());
@@ -0,0 +1,34 @@
+package med.voll.api.infra.http;
+
+import java.util.Arrays;
+
+/**
+ * ETag forte gerado a partir da coluna @Version do registro: muda sempre que o registro é alterado
+ */
+public final class ETagVersao {
+
+    private ETagVersao() {
+    }
+
+    public static String de(Long versao) {
+        return "\"" + versao + "\"";
+    }
+
+    /**
+     * Confere o cabeçalho If-Match de uma alteração contra a versão atual do registro.
+     * Sem o cabeçalho a alteração é aceita (clientes antigos); com um ETag diferente do atual o cliente está alterando
+     * a partir de uma leitura desatualizada e recebe 412, em vez de sobrescrever a alteração feita por outro
+     */
+    public static void verificarIfMatch(String ifMatch, Long versao) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return;
+        }
+        var atual = de(versao);
+        var confere = Arrays.stream(ifMatch.split(","))
+                .map(String::trim)
+                .anyMatch(etag -> etag.equals("*") || etag.equals(atual));
+        if (!confere) {
+            throw new VersaoDesatualizadaException(atual);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package med.voll.api.infra.http;
+
+/**
+ * O If-Match de uma alteração não confere com a versão atual do registro (ver ETagVersao)
+ */
+public class VersaoDesatualizadaException extends RuntimeException {
+
+    private final String etagAtual;
+
+    public VersaoDesatualizadaException(String etagAtual) {
+        super("Registro alterado desde a última leitura, busque a versão atual antes de alterar");
+        this.etagAtual = etagAtual;
+    }
+
+    public String getEtagAtual() {
+        return etagAtual;
+    }
+}
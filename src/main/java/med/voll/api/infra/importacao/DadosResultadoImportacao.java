@@ -0,0 +1,12 @@
+package med.voll.api.infra.importacao;
+
+import java.util.List;
+
+/**
+ * Resumo da importação. Para manter a memória constante, apenas as primeiras rejeições são detalhadas
+ */
+public record DadosResultadoImportacao(long processadas, long importadas, long rejeitadas, List<Rejeicao> rejeicoes) {
+
+    public record Rejeicao(long linha, String erro) {
+    }
+}
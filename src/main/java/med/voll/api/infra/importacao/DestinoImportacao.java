@@ -0,0 +1,25 @@
+package med.voll.api.infra.importacao;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Regras específicas de cada cadastro importado (médicos, pacientes) usadas pelo ImportadorEmLote
+ */
+public interface DestinoImportacao<T> {
+
+    Class<T> tipo();
+
+    /**
+     * Converte uma linha de CSV (coluna do cabeçalho -> valor) nos dados de cadastro
+     */
+    T deCsv(Map<String, String> colunas);
+
+    /**
+     * Verifica duplicidades do lote (entre si e com o que já está no banco) com uma consulta por campo único
+     * @return mensagens de erro indexadas pela posição do item no lote
+     */
+    Map<Integer, String> duplicados(List<T> lote);
+
+    void salvar(List<T> lote);
+}
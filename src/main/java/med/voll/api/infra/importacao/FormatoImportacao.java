@@ -0,0 +1,26 @@
+package med.voll.api.infra.importacao;
+
+import med.voll.api.domain.ValidacaoException;
+
+public enum FormatoImportacao {
+
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private final String contentType;
+
+    FormatoImportacao(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public static FormatoImportacao de(String contentType) {
+        if (contentType != null) {
+            for (FormatoImportacao formato : values()) {
+                if (contentType.toLowerCase().startsWith(formato.contentType)) {
+                    return formato;
+                }
+            }
+        }
+        throw new ValidacaoException("Formato de importação não suportado: " + contentType);
+    }
+}
@@ -0,0 +1,257 @@
+package med.voll.api.infra.importacao;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Importa cadastros a partir de um arquivo CSV (com cabeçalho) ou NDJSON (um objeto JSON por linha).
+ * O arquivo é lido registro a registro direto do corpo da requisição e gravado em lotes, cada um na sua própria transação,
+ * então a memória usada depende do tamanho do lote e não do tamanho do arquivo.
+ * Linhas inválidas ou duplicadas são rejeitadas sem interromper a importação.
+ */
+@Component
+public class ImportadorEmLote {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    private final TransactionTemplate transacao;
+
+    @Value("${api.importacao.tamanho-lote:500}")
+    private int tamanhoLote;
+
+    @Value("${api.importacao.max-rejeicoes-detalhadas:1000}")
+    private int maxRejeicoesDetalhadas;
+
+    public ImportadorEmLote(PlatformTransactionManager transactionManager) {
+        this.transacao = new TransactionTemplate(transactionManager);
+    }
+
+    public <T> DadosResultadoImportacao importar(InputStream entrada, FormatoImportacao formato, DestinoImportacao<T> destino) throws IOException {
+        var progresso = new Progresso();
+        var lote = new ArrayList<Linha<T>>(tamanhoLote);
+
+        try (var leitor = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+            if (formato == FormatoImportacao.CSV) {
+                var csv = new LeitorCsv(leitor);
+                var cabecalho = csv.proximoRegistro();
+                if (cabecalho == null) {
+                    cabecalho = List.of();
+                }
+
+                List<String> campos;
+                while ((campos = csv.proximoRegistro()) != null) {
+                    if (campos.size() == 1 && campos.get(0).isBlank()) {
+                        continue;
+                    }
+                    if (csv.aspasSemFechamento()) {
+                        progresso.processadas++;
+                        progresso.rejeitar(csv.linhaDoRegistro(), "Linha inválida: aspas sem fechamento");
+                        continue;
+                    }
+                    var colunas = colunas(cabecalho, campos);
+                    processar(csv.linhaDoRegistro(), () -> destino.deCsv(colunas), lote, destino, progresso);
+                }
+            } else {
+                var numeroLinha = 0L;
+                String conteudo;
+                while ((conteudo = leitor.readLine()) != null) {
+                    numeroLinha++;
+                    if (conteudo.isBlank()) {
+                        continue;
+                    }
+                    var json = conteudo;
+                    processar(numeroLinha, () -> objectMapper.readValue(json, destino.tipo()), lote, destino, progresso);
+                }
+            }
+            gravar(lote, destino, progresso);
+        }
+
+        return new DadosResultadoImportacao(progresso.processadas, progresso.importadas, progresso.rejeitadas, progresso.rejeicoes);
+    }
+
+    // Converte e valida um registro; os válidos vão para o lote, gravado quando atinge o tamanhoLote
+    private <T> void processar(long numeroLinha, Conversao<T> conversao, List<Linha<T>> lote, DestinoImportacao<T> destino, Progresso progresso) {
+        progresso.processadas++;
+        try {
+            var dados = conversao.converter();
+            var violacoes = validator.validate(dados);
+            if (!violacoes.isEmpty()) {
+                progresso.rejeitar(numeroLinha, mensagem(violacoes));
+                return;
+            }
+            lote.add(new Linha<>(numeroLinha, dados));
+        } catch (JsonProcessingException ex) {
+            progresso.rejeitar(numeroLinha, "Linha inválida: " + ex.getOriginalMessage());
+            return;
+        } catch (IllegalArgumentException ex) {
+            progresso.rejeitar(numeroLinha, "Linha inválida: " + ex.getMessage());
+            return;
+        }
+
+        if (lote.size() == tamanhoLote) {
+            gravar(lote, destino, progresso);
+            lote.clear();
+        }
+    }
+
+    private <T> void gravar(List<Linha<T>> lote, DestinoImportacao<T> destino, Progresso progresso) {
+        if (lote.isEmpty()) {
+            return;
+        }
+
+        var dados = lote.stream().map(Linha::dados).toList();
+        try {
+            var duplicados = transacao.execute(status -> {
+                var erros = destino.duplicados(dados);
+                var validos = new ArrayList<T>(dados.size());
+                for (int i = 0; i < dados.size(); i++) {
+                    if (!erros.containsKey(i)) {
+                        validos.add(dados.get(i));
+                    }
+                }
+                destino.salvar(validos);
+                return erros;
+            });
+            duplicados.forEach((posicao, erro) -> progresso.rejeitar(lote.get(posicao).numero(), erro));
+            progresso.importadas += lote.size() - duplicados.size();
+        } catch (DataIntegrityViolationException ex) {
+            // Outra requisição gravou um registro conflitante entre a verificação e o commit: o lote inteiro é rejeitado
+            lote.forEach(linha -> progresso.rejeitar(linha.numero(), "Lote rejeitado por violação de integridade: " + ex.getMostSpecificCause().getMessage()));
+        }
+    }
+
+    private String mensagem(Set<? extends ConstraintViolation<?>> violacoes) {
+        return violacoes.stream()
+                .map(violacao -> violacao.getPropertyPath() + ": " + violacao.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private Map<String, String> colunas(List<String> cabecalho, List<String> valores) {
+        var colunas = new HashMap<String, String>();
+        for (int i = 0; i < cabecalho.size() && i < valores.size(); i++) {
+            var valor = valores.get(i);
+            colunas.put(cabecalho.get(i).trim().toLowerCase(), valor.isEmpty() ? null : valor);
+        }
+        return colunas;
+    }
+
+    /**
+     * Lê um CSV registro a registro, caractere a caractere (RFC 4180): vírgulas e quebras de linha entre aspas fazem parte
+     * do campo e aspas duplicadas ("") viram uma aspa. Registros terminam em \n ou \r\n.
+     * Guarda a linha do arquivo em que cada registro começa, usada nas rejeições.
+     */
+    static class LeitorCsv {
+
+        private final Reader entrada;
+        private long linhaAtual = 1;
+        private long linhaDoRegistro;
+        private boolean aspasSemFechamento;
+
+        LeitorCsv(Reader entrada) {
+            this.entrada = entrada;
+        }
+
+        /**
+         * @return os campos do próximo registro, ou null no fim do arquivo
+         */
+        List<String> proximoRegistro() throws IOException {
+            var c = entrada.read();
+            if (c == -1) {
+                return null;
+            }
+
+            linhaDoRegistro = linhaAtual;
+            var campos = new ArrayList<String>();
+            var atual = new StringBuilder();
+            var entreAspas = false;
+            while (c != -1) {
+                if (entreAspas) {
+                    if (c == '"') {
+                        c = entrada.read();
+                        if (c != '"') {
+                            entreAspas = false;
+                            continue; //Aspa de fechamento: o caractere lido em seguida é tratado fora das aspas
+                        }
+                        atual.append('"');
+                    } else {
+                        if (c == '\n') {
+                            linhaAtual++;
+                        }
+                        atual.append((char) c);
+                    }
+                } else if (c == '"') {
+                    entreAspas = true;
+                } else if (c == ',') {
+                    campos.add(atual.toString());
+                    atual.setLength(0);
+                } else if (c == '\n') {
+                    linhaAtual++;
+                    break;
+                } else if (c != '\r') {
+                    atual.append((char) c);
+                }
+                c = entrada.read();
+            }
+            campos.add(atual.toString());
+            aspasSemFechamento = entreAspas;
+            return campos;
+        }
+
+        long linhaDoRegistro() {
+            return linhaDoRegistro;
+        }
+
+        // O arquivo terminou dentro de aspas: o último registro consumiu o resto do arquivo e não pode ser importado
+        boolean aspasSemFechamento() {
+            return aspasSemFechamento;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Conversao<T> {
+        T converter() throws JsonProcessingException;
+    }
+
+    private record Linha<T>(long numero, T dados) {
+    }
+
+    private class Progresso {
+        private long processadas;
+        private long importadas;
+        private long rejeitadas;
+        private final List<DadosResultadoImportacao.Rejeicao> rejeicoes = new ArrayList<>();
+
+        private void rejeitar(long linha, String erro) {
+            rejeitadas++;
+            if (rejeicoes.size() < maxRejeicoesDetalhadas) {
+                rejeicoes.add(new DadosResultadoImportacao.Rejeicao(linha, erro));
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package med.voll.api.infra.importacao;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Marca os itens de um lote cujo valor de um campo único já existe no banco ou se repete dentro do próprio lote
+ */
+public final class VerificadorDuplicidade {
+
+    private VerificadorDuplicidade() {
+    }
+
+    public static <T> void verificar(List<T> lote, Function<T, String> campo, Function<Collection<String>, List<String>> consultaExistentes,
+                                     String descricao, Map<Integer, String> erros) {
+        var valores = lote.stream().map(campo).toList();
+        var existentes = new HashSet<>(consultaExistentes.apply(new HashSet<>(valores))); //Uma única consulta por lote
+        var vistosNoLote = new HashMap<String, Integer>();
+        for (int i = 0; i < valores.size(); i++) {
+            var valor = valores.get(i);
+            if (existentes.contains(valor)) {
+                erros.putIfAbsent(i, descricao + " já cadastrado: " + valor);
+            } else if (vistosNoLote.putIfAbsent(valor, i) != null) {
+                erros.putIfAbsent(i, descricao + " repetido no arquivo: " + valor);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package med.voll.api.infra.metricas;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registra quantos comandos SQL cada requisição executou (api.requisicao.consultas.sql), com as mesmas tags method e uri
+ * do http.server.requests, para que as duas métricas possam ser cruzadas por endpoint.
+ * Também devolve a quantidade e o tempo nos cabeçalhos X-Consultas-Sql e X-Tempo-Sql-Ms, e registra um aviso quando o
+ * endpoint passa do seu orçamento (@OrcamentoConsultasSql ou api.sql.orcamento-padrao) ou repete o mesmo select
+ * api.sql.limite-repeticoes vezes ou mais (provável N+1).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1) //Logo depois do LimiteRequisicoesFilter, contando também o que os demais filtros executam
+public class ConsultasPorRequisicaoFilter extends OncePerRequestFilter {
+
+    public static final String CABECALHO_CONSULTAS = "X-Consultas-Sql";
+    public static final String CABECALHO_TEMPO = "X-Tempo-Sql-Ms";
+
+    private static final Logger log = LoggerFactory.getLogger(ConsultasPorRequisicaoFilter.class);
+
+    private final MeterRegistry registry;
+    private final boolean cabecalhos;
+    private final int orcamentoPadrao;
+    private final int limiteRepeticoes;
+
+    public ConsultasPorRequisicaoFilter(MeterRegistry registry,
+                                        @Value("${api.sql.cabecalhos:false}") boolean cabecalhos,
+                                        @Value("${api.sql.orcamento-padrao:10}") int orcamentoPadrao,
+                                        @Value("${api.sql.limite-repeticoes:3}") int limiteRepeticoes) {
+        this.registry = registry;
+        this.cabecalhos = cabecalhos;
+        this.orcamentoPadrao = orcamentoPadrao;
+        this.limiteRepeticoes = limiteRepeticoes;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        var contagem = ContadorConsultasSql.iniciar();
+        var resposta = cabecalhos ? new RespostaComContagem(response, contagem) : null;
+        try {
+            filterChain.doFilter(request, (resposta != null) ? resposta : response);
+        } finally {
+            ContadorConsultasSql.encerrar();
+            if (resposta != null && !request.isAsyncStarted()) {
+                resposta.escreverCabecalhos(); //Respostas sem corpo (204, 304) não passam pelo commit antes de chegar aqui
+            }
+            var uri = uri(request);
+            DistributionSummary.builder("api.requisicao.consultas.sql")
+                    .description("Comandos SQL executados por requisição")
+                    .baseUnit("comandos")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(registry)
+                    .record(contagem.consultas());
+            verificarOrcamento(request, uri, contagem);
+        }
+    }
+
+    private void verificarOrcamento(HttpServletRequest request, String uri, ContadorConsultasSql.Contagem contagem) {
+        var orcamento = orcamento(request);
+        if (contagem.consultas() > orcamento) {
+            log.warn("{} {} executou {} comandos SQL, acima do orçamento de {}", request.getMethod(), uri, contagem.consultas(), orcamento);
+        }
+        contagem.selectsRepetidos(limiteRepeticoes).forEach((sql, vezes) ->
+                log.warn("{} {} executou {} vezes o mesmo select (possível N+1): {}", request.getMethod(), uri, vezes, sql));
+    }
+
+    private int orcamento(HttpServletRequest request) {
+        if (request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler) {
+            var anotacao = handler.getMethodAnnotation(OrcamentoConsultasSql.class);
+            if (anotacao != null) {
+                return anotacao.value();
+            }
+        }
+        return orcamentoPadrao;
+    }
+
+    // O padrão mapeado (ex: /medicos/{id}) e não a URL, para não criar uma série por id
+    private static String uri(HttpServletRequest request) {
+        var padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return (padrao != null) ? padrao.toString() : "UNKNOWN";
+    }
+
+    /**
+     * Os cabeçalhos precisam ser escritos antes do commit da resposta (o primeiro flush do corpo), momento em que o
+     * OnCommittedResponseWrapper avisa; nesse ponto o controller já terminou e a contagem está completa
+     */
+    private static class RespostaComContagem extends OnCommittedResponseWrapper {
+
+        private final ContadorConsultasSql.Contagem contagem;
+        private boolean escritos;
+
+        RespostaComContagem(HttpServletResponse response, ContadorConsultasSql.Contagem contagem) {
+            super(response);
+            this.contagem = contagem;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            escreverCabecalhos();
+        }
+
+        void escreverCabecalhos() {
+            if (escritos || getResponse().isCommitted()) {
+                return;
+            }
+            escritos = true;
+            setHeader(CABECALHO_CONSULTAS, String.valueOf(contagem.consultas()));
+            setHeader(CABECALHO_TEMPO, String.format(Locale.ROOT, "%.1f", contagem.nanos() / (double) TimeUnit.MILLISECONDS.toNanos(1)));
+        }
+    }
+}
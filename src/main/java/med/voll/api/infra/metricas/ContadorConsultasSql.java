@@ -0,0 +1,106 @@
+package med.voll.api.infra.metricas;
+
+import org.hibernate.SessionEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Conta os comandos SQL executados pelo Hibernate na thread atual entre iniciar() e encerrar(), com o tempo gasto
+ * executando-os no banco e quantas vezes cada select foi preparado (o mesmo select repetido várias vezes na mesma
+ * requisição costuma ser um N+1, ex: associações lazy lidas dentro de um laço).
+ * O Hibernate cria uma instância por sessão para os eventos e usa outra como StatementInspector (ambas registradas em
+ * MetricasConfigurations); a contagem fica na thread, então comandos executados em outras threads (ex: login no pool
+ * do ExecutorAutenticacao) não entram nela.
+ */
+public class ContadorConsultasSql implements SessionEventListener, StatementInspector {
+
+    private static final ThreadLocal<Contagem> CONTAGEM_ATUAL = new ThreadLocal<>();
+
+    public static Contagem iniciar() {
+        var contagem = new Contagem();
+        CONTAGEM_ATUAL.set(contagem);
+        return contagem;
+    }
+
+    public static void encerrar() {
+        CONTAGEM_ATUAL.remove();
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        iniciarComando();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        encerrarComando();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        iniciarComando();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        encerrarComando(); //Um lote de inserts/updates é enviado ao banco como um único comando
+    }
+
+    @Override
+    public String inspect(String sql) {
+        var contagem = CONTAGEM_ATUAL.get();
+        if (contagem != null && sql.stripLeading().regionMatches(true, 0, "select", 0, 6)) {
+            contagem.selects.merge(sql, 1, Integer::sum);
+        }
+        return sql;
+    }
+
+    private static void iniciarComando() {
+        var contagem = CONTAGEM_ATUAL.get();
+        if (contagem != null) {
+            contagem.inicioComando = System.nanoTime();
+        }
+    }
+
+    private static void encerrarComando() {
+        var contagem = CONTAGEM_ATUAL.get();
+        if (contagem != null) {
+            contagem.consultas++;
+            contagem.nanos += System.nanoTime() - contagem.inicioComando;
+        }
+    }
+
+    public static class Contagem {
+
+        private int consultas;
+        private long nanos;
+        private long inicioComando;
+        private final Map<String, Integer> selects = new HashMap<>();
+
+        public int consultas() {
+            return consultas;
+        }
+
+        /**
+         * Tempo de execução dos comandos no banco (sem a leitura das linhas retornadas)
+         */
+        public long nanos() {
+            return nanos;
+        }
+
+        /**
+         * Selects preparados pelo menos {@code vezes} vezes, com a quantidade de repetições
+         */
+        public Map<String, Integer> selectsRepetidos(int vezes) {
+            var repetidos = new HashMap<String, Integer>();
+            selects.forEach((sql, total) -> {
+                if (total >= vezes) {
+                    repetidos.put(sql, total);
+                }
+            });
+            return repetidos;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package med.voll.api.infra.metricas;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Métricas expostas em /actuator/prometheus, na porta de gerenciamento (management.server.port). Além das automáticas do Spring Boot (http.server.requests por endpoint e
+ * spring.data.repository.invocations por método de repository), registra o ContadorConsultasSql em todas as sessões do Hibernate,
+ * tanto para os eventos de execução dos comandos quanto como StatementInspector (texto dos selects, usado na detecção de N+1).
+ */
+@Configuration
+public class MetricasConfigurations {
+
+    @Bean
+    public HibernatePropertiesCustomizer contadorConsultasSql() {
+        return properties -> {
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, ContadorConsultasSql.class.getName());
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, new ContadorConsultasSql());
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package med.voll.api.infra.metricas;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Mede o tempo de cada validador de agendamento e de cancelamento (timer api.validacao, com o nome da classe do validador
+ * e se a validação passou ou lançou erro), permitindo ver qual regra pesa em cada operação.
+ */
+@Component
+public class MetricasValidacao {
+
+    public static final String AGENDAMENTO = "agendamento";
+    public static final String CANCELAMENTO = "cancelamento";
+
+    private final MeterRegistry registry;
+
+    public MetricasValidacao(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void medir(String tipo, Object validador, Runnable validacao) {
+        var amostra = Timer.start(registry);
+        var resultado = "sucesso";
+        try {
+            validacao.run();
+        } catch (RuntimeException ex) {
+            resultado = "erro";
+            throw ex;
+        } finally {
+            amostra.stop(Timer.builder("api.validacao")
+                    .description("Tempo de execução de cada validador")
+                    .tag("tipo", tipo)
+                    .tag("validador", ClassUtils.getUserClass(validador).getSimpleName())
+                    .tag("resultado", resultado)
+                    .register(registry));
+        }
+    }
+}
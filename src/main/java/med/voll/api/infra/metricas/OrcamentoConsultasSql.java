@@ -0,0 +1,17 @@
+package med.voll.api.infra.metricas;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Máximo de comandos SQL esperado para o endpoint. Acima dele o ConsultasPorRequisicaoFilter registra um aviso no log.
+ * Endpoints sem a anotação usam api.sql.orcamento-padrao
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OrcamentoConsultasSql {
+
+    int value();
+}
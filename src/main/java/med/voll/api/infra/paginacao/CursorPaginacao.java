@@ -0,0 +1,30 @@
+package med.voll.api.infra.paginacao;
+
+import med.voll.api.domain.ValidacaoException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posição da última linha devolvida em uma listagem ordenada por (nome, id).
+ * Trafega como um token opaco (Base64 URL-safe), para que o cliente apenas o repasse na próxima requisição.
+ */
+public record CursorPaginacao(String nome, Long id) {
+
+    private static final char SEPARADOR = ':';
+
+    public String codificar() {
+        var conteudo = id + String.valueOf(SEPARADOR) + nome;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorPaginacao decodificar(String token) {
+        try {
+            var conteudo = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            var separador = conteudo.indexOf(SEPARADOR); //O id vem primeiro, pois o nome pode conter o separador
+            return new CursorPaginacao(conteudo.substring(separador + 1), Long.valueOf(conteudo.substring(0, separador)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new ValidacaoException("Cursor de paginação inválido");
+        }
+    }
+}
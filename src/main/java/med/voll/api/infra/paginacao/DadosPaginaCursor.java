@@ -0,0 +1,22 @@
+package med.voll.api.infra.paginacao;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de uma listagem por cursor. proximoCursor é null na última página
+ * e total só é preenchido quando solicitado, evitando o count(*) a cada página.
+ */
+public record DadosPaginaCursor<T>(List<T> conteudo, String proximoCursor, Long total) {
+
+    /**
+     * Monta a página a partir de uma busca que trouxe até tamanho + 1 linhas: a linha excedente apenas indica que existe próxima página
+     */
+    public static <E, T> DadosPaginaCursor<T> de(List<E> linhas, int tamanho, Function<E, T> conversor,
+                                                 Function<E, CursorPaginacao> posicao, Long total) {
+        var temProxima = linhas.size() > tamanho;
+        var pagina = temProxima ? linhas.subList(0, tamanho) : linhas;
+        var proximoCursor = temProxima ? posicao.apply(pagina.get(pagina.size() - 1)).codificar() : null;
+        return new DadosPaginaCursor<>(pagina.stream().map(conversor).toList(), proximoCursor, total);
+    }
+}
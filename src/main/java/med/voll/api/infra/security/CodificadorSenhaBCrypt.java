@@ -0,0 +1,31 @@
+package med.voll.api.infra.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt com custo configurável. upgradeEncoding() indica que a senha deve ser refeita sempre que o custo gravado no hash
+ * for diferente do configurado (para mais ou para menos); o Spring Security então chama AutenticacaoService.updatePassword
+ * logo após um login bem-sucedido, migrando os hashes aos poucos, sem exigir troca de senha.
+ */
+public class CodificadorSenhaBCrypt extends BCryptPasswordEncoder {
+
+    private static final Pattern HASH_BCRYPT = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$.{53}$");
+
+    private final int custo;
+
+    public CodificadorSenhaBCrypt(int custo) {
+        super(custo);
+        this.custo = custo;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String senhaCodificada) {
+        if (senhaCodificada == null) {
+            return false;
+        }
+        var hash = HASH_BCRYPT.matcher(senhaCodificada);
+        return hash.matches() && Integer.parseInt(hash.group(1)) != custo;
+    }
+}
@@ -0,0 +1,5 @@
+package med.voll.api.infra.security;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record DadosRenovacaoToken(@NotBlank String refreshToken) {}
@@ -1,3 +1,3 @@
 package med.voll.api.infra.security;
 
-public record DadosTokenJWT(String token) {}
+public record DadosTokenJWT(String token, String refreshToken) {}
@@ -0,0 +1,10 @@
+package med.voll.api.infra.security;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Claims de um token JWT com assinatura já verificada
+ */
+public record DadosTokenVerificado(String id, Long idUsuario, String login, List<String> perfis, Instant emitidoEm, Instant expiracao) {
+}
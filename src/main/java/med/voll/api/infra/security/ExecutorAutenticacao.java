@@ -0,0 +1,42 @@
+package med.voll.api.infra.security;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Pool dedicado às verificações de senha do login. O BCrypt é propositalmente caro em CPU: em picos de login ele
+ * ocuparia todas as threads do Tomcat e atrasaria os demais endpoints. Aqui ele fica limitado a poucas threads
+ * (por padrão metade dos núcleos) e a uma fila de tamanho fixo; com a fila cheia a tarefa é recusada na hora
+ * com RejectedExecutionException, que o TratadorDeErros devolve como 503.
+ */
+@Component
+public class ExecutorAutenticacao {
+
+    private final ThreadPoolExecutor executor;
+
+    public ExecutorAutenticacao(@Value("${api.security.login.threads:0}") int threads,
+                                @Value("${api.security.login.fila:200}") int fila) {
+        var total = (threads > 0) ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = new ThreadPoolExecutor(total, total, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fila),
+                new CustomizableThreadFactory("login-bcrypt-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public <T> CompletableFuture<T> executar(Supplier<T> tarefa) {
+        return CompletableFuture.supplyAsync(tarefa, executor);
+    }
+
+    @PreDestroy
+    void encerrar() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,119 @@
+package med.voll.api.infra.security;
+
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lista de tokens revogados (logout e usuários alterados/removidos), consultada em memória a cada requisição.
+ * As revogações são gravadas na tabela tokens_revogados e cada instância da API sincroniza sua cópia periodicamente,
+ * então o custo no banco é uma consulta por intervalo por instância, independente do volume de requisições.
+ */
+@Component
+public class ListaRevogacaoTokens {
+
+    private static final Logger log = LoggerFactory.getLogger(ListaRevogacaoTokens.class);
+
+    @Autowired
+    private TokenRevogadoRepository repository;
+
+    @Autowired
+    private RenovacaoTokens renovacaoTokens;
+
+    // Tempo que uma revogação por usuário precisa ser mantida: deve cobrir a validade máxima de um token
+    @Value("${api.security.token.revogacao.retencao:24h}")
+    private Duration retencao;
+
+    private volatile Map<String, Instant> tokensRevogados = new ConcurrentHashMap<>();
+    private volatile Map<String, Instant> usuariosRevogados = new ConcurrentHashMap<>();
+
+    // Impede que uma revogação feita nesta instância caia no mapa antigo depois que sincronizar() já o copiou
+    private final Object trava = new Object();
+
+    public boolean revogado(DadosTokenVerificado token) {
+        if (token.id() != null && tokensRevogados.containsKey(token.id())) {
+            return true;
+        }
+        var revogadoEm = usuariosRevogados.get(token.login());
+        return revogadoEm != null && token.emitidoEm() != null && !token.emitidoEm().isAfter(revogadoEm);
+    }
+
+    /**
+     * Revoga um único token (logout)
+     */
+    public void revogarToken(DadosTokenVerificado token) {
+        if (token.id() == null) { //Tokens emitidos antes do jti não podem ser revogados individualmente
+            revogarTokensDoUsuario(token.login());
+            return;
+        }
+        var agora = Instant.now();
+        repository.save(new TokenRevogado(null, token.id(), null, agora, token.expiracao()));
+        synchronized (trava) {
+            tokensRevogados.put(token.id(), token.expiracao());
+        }
+    }
+
+    /**
+     * Revoga todos os tokens emitidos até agora para o login informado, inclusive os refresh tokens.
+     * Roda em uma transação nova pois é chamado após o commit da alteração do usuário (ver UsuarioListener)
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void revogarTokensDoUsuario(String login) {
+        // O iat do JWT tem precisão de segundos, então a revogação também é truncada para não deixar passar tokens do mesmo segundo
+        var agora = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        repository.save(new TokenRevogado(null, null, login, agora, agora.plus(retencao)));
+        synchronized (trava) {
+            usuariosRevogados.merge(login, agora, (atual, novo) -> novo.isAfter(atual) ? novo : atual);
+        }
+        renovacaoTokens.revogarDoUsuario(login); //Sem isso o usuário alterado/removido continuaria obtendo tokens novos pelo refresh
+    }
+
+    /**
+     * Recarrega as revogações gravadas por todas as instâncias. As revogações feitas nesta instância enquanto a consulta
+     * roda (ainda não visíveis para ela, por exemplo em transações não commitadas) são mantidas até expirarem
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${api.security.token.revogacao.sincronizacao-ms:30000}", initialDelayString = "${api.security.token.revogacao.sincronizacao-ms:30000}")
+    public void sincronizar() {
+        var agora = Instant.now();
+        repository.excluirExpirados(agora);
+
+        var tokens = new ConcurrentHashMap<String, Instant>();
+        var usuarios = new ConcurrentHashMap<String, Instant>();
+        repository.findByExpiraEmAfter(agora).forEach(revogacao -> {
+            if (revogacao.getIdToken() != null) {
+                tokens.put(revogacao.getIdToken(), revogacao.getExpiraEm());
+            }
+            if (revogacao.getLogin() != null) {
+                usuarios.merge(revogacao.getLogin(), revogacao.getRevogadoEm(), (atual, novo) -> novo.isAfter(atual) ? novo : atual);
+            }
+        });
+        synchronized (trava) {
+            tokensRevogados.forEach((id, expiraEm) -> {
+                if (expiraEm.isAfter(agora)) {
+                    tokens.putIfAbsent(id, expiraEm);
+                }
+            });
+            usuariosRevogados.forEach((login, revogadoEm) -> {
+                if (revogadoEm.plus(retencao).isAfter(agora)) {
+                    usuarios.merge(login, revogadoEm, (atual, novo) -> novo.isAfter(atual) ? novo : atual);
+                }
+            });
+            this.tokensRevogados = tokens;
+            this.usuariosRevogados = usuarios;
+        }
+        log.debug("Lista de revogação sincronizada: {} tokens e {} usuários", tokens.size(), usuarios.size());
+    }
+}
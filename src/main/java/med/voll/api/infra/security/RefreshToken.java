@@ -0,0 +1,47 @@
+package med.voll.api.infra.security;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Refresh token opaco (apenas o hash é gravado). Tokens emitidos a partir do mesmo login formam uma família:
+ * cada um só pode ser usado uma vez, e o reuso de um token já usado revoga a família inteira.
+ */
+@Table(name = "refresh_tokens")
+@Entity(name = "RefreshToken")
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String hash;
+
+    private String familia;
+
+    @Column(name = "usuario_id")
+    private Long idUsuario;
+
+    private String login;
+
+    @Column(name = "criado_em")
+    private Instant criadoEm;
+
+    @Column(name = "expira_em")
+    private Instant expiraEm;
+
+    @Column(name = "usado_em")
+    private Instant usadoEm;
+
+    @Column(name = "revogado_em")
+    private Instant revogadoEm;
+}
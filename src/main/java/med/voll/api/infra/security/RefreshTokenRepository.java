@@ -0,0 +1,32 @@
+package med.voll.api.infra.security;
+
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    Optional<RefreshToken> findByHash(String hash);
+
+    // Condicional: se duas renovações chegarem juntas com o mesmo token, só uma consegue marcá-lo como usado
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.usadoEm = :agora WHERE r.id = :id AND r.usadoEm IS NULL")
+    int marcarComoUsado(Long id, Instant agora);
+
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revogadoEm = :agora WHERE r.familia = :familia AND r.revogadoEm IS NULL")
+    int revogarFamilia(String familia, Instant agora);
+
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revogadoEm = :agora WHERE r.login = :login AND r.revogadoEm IS NULL")
+    int revogarDoUsuario(String login, Instant agora);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken r WHERE r.expiraEm <= :agora")
+    int excluirExpirados(Instant agora);
+}
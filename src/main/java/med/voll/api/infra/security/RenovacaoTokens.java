@@ -0,0 +1,104 @@
+package med.voll.api.infra.security;
+
+import jakarta.transaction.Transactional;
+import med.voll.api.domain.usuario.DadosLoginUsuario;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Emite e renova refresh tokens, permitindo obter um novo token JWT sem repetir o login (e o BCrypt da senha).
+ * A renovação é uma busca pelo hash do token (índice único) e um update condicional: o token usado é descartado
+ * e um novo da mesma família é devolvido (rotação). Se um token já usado for apresentado de novo, ele vazou
+ * (ou foi roubado) e toda a família é revogada, obrigando um novo login.
+ */
+@Service
+public class RenovacaoTokens {
+
+    private static final String TOKEN_INVALIDO = "Refresh token inválido ou expirado";
+
+    @Autowired
+    private RefreshTokenRepository repository;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Value("${api.security.refresh-token.validade:30d}")
+    private Duration validade;
+
+    private final SecureRandom aleatorio = new SecureRandom();
+
+    /**
+     * Inicia uma nova família de refresh tokens para o usuário que acabou de fazer login.
+     * A validade da família conta a partir daqui: as renovações não a estendem
+     */
+    @Transactional
+    public String emitir(DadosLoginUsuario usuario) {
+        return emitir(usuario.id(), usuario.login(), UUID.randomUUID().toString(), Instant.now().plus(validade));
+    }
+
+    /**
+     * Troca o refresh token por um novo token JWT e um novo refresh token da mesma família, com a mesma expiração.
+     * BadCredentialsException não desfaz a transação, para que a revogação da família por reuso seja gravada
+     */
+    @Transactional(dontRollbackOn = BadCredentialsException.class)
+    public DadosTokenJWT renovar(String refreshToken) {
+        var registro = repository.findByHash(TokenService.hash(refreshToken))
+                .orElseThrow(() -> new BadCredentialsException(TOKEN_INVALIDO));
+        var agora = Instant.now();
+
+        if (registro.getRevogadoEm() != null || !registro.getExpiraEm().isAfter(agora)) {
+            throw new BadCredentialsException(TOKEN_INVALIDO);
+        }
+        if (repository.marcarComoUsado(registro.getId(), agora) == 0) {
+            repository.revogarFamilia(registro.getFamilia(), agora);
+            throw new BadCredentialsException(TOKEN_INVALIDO);
+        }
+
+        var usuario = new DadosLoginUsuario(registro.getIdUsuario(), registro.getLogin(), null); //O JWT só precisa de id, login e perfis
+        return new DadosTokenJWT(
+                tokenService.gerarToken(usuario),
+                emitir(registro.getIdUsuario(), registro.getLogin(), registro.getFamilia(), registro.getExpiraEm()));
+    }
+
+    /**
+     * Logout: revoga a família do refresh token, para que ele (ou outro já emitido na mesma sessão) não gere novos JWTs.
+     * Só revoga famílias do próprio usuário; token desconhecido é ignorado, já que o logout não falha
+     */
+    @Transactional
+    public void revogarFamilia(String refreshToken, String login) {
+        repository.findByHash(TokenService.hash(refreshToken))
+                .filter(registro -> registro.getLogin().equals(login))
+                .ifPresent(registro -> repository.revogarFamilia(registro.getFamilia(), Instant.now()));
+    }
+
+    /**
+     * Chamado junto com a revogação dos tokens JWT do usuário (alteração ou exclusão), ver ListaRevogacaoTokens
+     */
+    public void revogarDoUsuario(String login) {
+        repository.revogarDoUsuario(login, Instant.now());
+    }
+
+    @Scheduled(fixedDelayString = "${api.security.refresh-token.limpeza-ms:3600000}", initialDelayString = "${api.security.refresh-token.limpeza-ms:3600000}")
+    public void excluirExpirados() {
+        repository.excluirExpirados(Instant.now());
+    }
+
+    private String emitir(Long idUsuario, String login, String familia, Instant expiraEm) {
+        var bytes = new byte[32];
+        aleatorio.nextBytes(bytes);
+        var token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        var agora = Instant.now();
+        repository.save(new RefreshToken(null, TokenService.hash(token), familia, idUsuario, login, agora, expiraEm, null, null));
+        return token;
+    }
+}
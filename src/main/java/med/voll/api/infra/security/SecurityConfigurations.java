@@ -1,6 +1,7 @@
 package med.voll.api.infra.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -10,7 +11,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -28,8 +28,9 @@ public class SecurityConfigurations {
                 .csrf(AbstractHttpConfigurer::disable)
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)) //Mudando de STATEFUL para STATELESS
                 .authorizeHttpRequests(auth -> {//Definindo as regras de autorização
-                    auth.requestMatchers(HttpMethod.POST, "/login").permitAll(); //Permitindo a rota login
+                    auth.requestMatchers(HttpMethod.POST, "/login", "/login/refresh").permitAll(); //Permitindo as rotas de login e renovação do token
                     auth.requestMatchers("/v3/api-docs/**", "/swagger-ui.html", "swagger-ui/**").permitAll(); //Permitindo as rotas do swagger
+                    auth.requestMatchers(HttpMethod.GET, "/actuator/health", "/actuator/prometheus", "/actuator/cachehibernate").permitAll(); //Health check, coleta de métricas pelo Prometheus e estatísticas do cache, servidos só na porta de gerenciamento (management.server.port, interna)
                     auth.anyRequest().authenticated(); // Bloqueando as demais rotas
                 })
                 .addFilterBefore(securityFilter, UsernamePasswordAuthenticationFilter.class) //IMPORTANTE: Definindo a ordem de chamada do Filter para securityFilter
@@ -45,10 +46,10 @@ public class SecurityConfigurations {
     }
 
     /**
-     * Método auxiliador para injetar o PasswordEncoder usando BCryptPasswordEncoder como hash
+     * Método auxiliador para injetar o PasswordEncoder usando BCrypt como hash, com o custo definido em api.security.bcrypt.custo
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${api.security.bcrypt.custo:10}") int custo) {
+        return new CodificadorSenhaBCrypt(custo);
     }
 }
@@ -4,7 +4,6 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import med.voll.api.domain.usuario.UsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -20,18 +19,20 @@ public class SecurityFilter extends OncePerRequestFilter { //OncePerRequestFilte
     private TokenService tokenService;
 
     @Autowired
-    private UsuarioRepository repository;
+    private ListaRevogacaoTokens listaRevogacao;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
 
         var tokenJWT = recuperarToken(request);
         if(tokenJWT != null) {
-            var subject = tokenService.getSubject(tokenJWT); // Validando o token
-            var usuario = repository.findByLogin(subject); // Buscando o usuário no banco de dados
+            var token = tokenService.verificar(tokenJWT); // Validando o token
 
-            var authentication = new UsernamePasswordAuthenticationToken(usuario, null, usuario.getAuthorities()); // Criando o objeto de autenticação
-            SecurityContextHolder.getContext().setAuthentication(authentication); // Colocando o objeto de autenticação no contexto do Spring Security para forçar a autenticação
+            if (!listaRevogacao.revogado(token)) { // Tokens de logout ou de usuários alterados/removidos não autenticam
+                var usuario = new UsuarioAutenticado(token); // Montando o usuário a partir das claims do token, sem consultar o banco de dados
+                var authentication = new UsernamePasswordAuthenticationToken(usuario, null, usuario.getAuthorities()); // Criando o objeto de autenticação
+                SecurityContextHolder.getContext().setAuthentication(authentication); // Colocando o objeto de autenticação no contexto do Spring Security para forçar a autenticação
+            }
         }
         // Prosseguindo com a requisição e resposta
         filterChain.doFilter(request, response);
@@ -0,0 +1,38 @@
+package med.voll.api.infra.security;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Revogação de tokens JWT. Pode revogar um token específico (idToken, usado no logout)
+ * ou todos os tokens de um usuário emitidos até revogadoEm (login, usado quando o usuário é alterado ou removido).
+ */
+@Table(name = "tokens_revogados")
+@Entity(name = "TokenRevogado")
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class TokenRevogado {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "id_token")
+    private String idToken;
+
+    private String login;
+
+    @Column(name = "revogado_em")
+    private Instant revogadoEm;
+
+    // Depois dessa data todos os tokens afetados já expiraram e o registro pode ser descartado
+    @Column(name = "expira_em")
+    private Instant expiraEm;
+}
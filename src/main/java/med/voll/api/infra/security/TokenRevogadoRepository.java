@@ -0,0 +1,19 @@
+package med.voll.api.infra.security;
+
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface TokenRevogadoRepository extends JpaRepository<TokenRevogado, Long> {
+
+    List<TokenRevogado> findByExpiraEmAfter(Instant agora);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TokenRevogado t WHERE t.expiraEm <= :agora")
+    int excluirExpirados(Instant agora);
+}
@@ -1,30 +1,68 @@
 package med.voll.api.infra.security;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTCreationException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
-import med.voll.api.domain.usuario.Usuario;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import med.voll.api.domain.usuario.DadosLoginUsuario;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Service //Pro spring carregar essa classe
 public class TokenService {
 
+    private static final String EMISSOR = "API Voll.med";
+
     @Value("${api.security.token.secret}")
     private String secret;
 
-    public String gerarToken(Usuario usuario) {
+    // Algorithm e JWTVerifier são imutáveis e thread-safe, então são criados uma única vez
+    private Algorithm algorithm;
+    private JWTVerifier verifier;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    // Tempo de verificar(): a checagem do HMAC-SHA256 do token a cada requisição
+    private Timer verificacao;
+
+    @PostConstruct
+    void inicializar() {
+        this.algorithm = Algorithm.HMAC256(secret); //Chave de segurança
+        this.verifier = JWT.require(algorithm)
+                .withIssuer(EMISSOR)
+                .build();
+        this.verificacao = Timer.builder("api.token.verificacao")
+                .description("Tempo de verificação do token JWT")
+                .register(registry);
+    }
+
+    public String gerarToken(DadosLoginUsuario usuario) {
         try {
-            Algorithm algorithm = Algorithm.HMAC256(secret); //Chave de segurança
             return JWT.create()
-                    .withIssuer("API Voll.med") //Pra identificar o emissor do token (no caso nossa própria API)
-                    .withSubject(usuario.getLogin()) //Pra identificar o subject (no caso o login do usuário)
-                    .withClaim("id", usuario.getId()) //Pra identificar o id do usuário
+                    .withIssuer(EMISSOR) //Pra identificar o emissor do token (no caso nossa própria API)
+                    .withSubject(usuario.login()) //Pra identificar o subject (no caso o login do usuário)
+                    .withClaim("id", usuario.id()) //Pra identificar o id do usuário
+                    .withClaim("perfis", perfis(usuario)) //Perfis do usuário, permitindo autenticar as requisições sem consultar o banco
+                    .withJWTId(UUID.randomUUID().toString()) //Identificador único do token, usado para revogá-lo no logout
+                    .withIssuedAt(Instant.now())
                     .withExpiresAt(dataExpiracao())
                     .sign(algorithm);
         } catch (JWTCreationException exception){
@@ -32,23 +70,50 @@ public class TokenService {
         }
     }
 
-    public String getSubject(String tokenJWT) {
+    /**
+     * Valida o token e devolve suas claims
+     */
+    public DadosTokenVerificado verificar(String tokenJWT) {
+        var inicio = System.nanoTime();
         try {
-            Algorithm algorithm = Algorithm.HMAC256(secret);
-            return JWT.require(algorithm)
-                    .withIssuer("API Voll.med")
-                    .build()
-                    .verify(tokenJWT)
-                    .getSubject();
+            return dadosDoToken(verifier.verify(tokenJWT));
         } catch (JWTVerificationException exception){
             throw new RuntimeException("Token JWT inválido ou expirado: " + tokenJWT);
+        } finally {
+            verificacao.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
         }
     }
 
+    private List<String> perfis(DadosLoginUsuario usuario) {
+        return usuario.getAuthorities().stream().map(perfil -> perfil.getAuthority()).toList();
+    }
+
+    private DadosTokenVerificado dadosDoToken(DecodedJWT decodificado) {
+        var perfis = decodificado.getClaim("perfis").asList(String.class);
+        var emitidoEm = decodificado.getIssuedAt();
+        return new DadosTokenVerificado(
+                decodificado.getId(),
+                decodificado.getClaim("id").asLong(),
+                decodificado.getSubject(),
+                (perfis != null) ? perfis : List.of(), //Tokens emitidos antes da claim de perfis não possuem essa informação
+                (emitidoEm != null) ? emitidoEm.toInstant() : null,
+                decodificado.getExpiresAt().toInstant());
+    }
+
     /**
      * Convertendo uma data de expiração para o tipo Instant para ser usada como data de expiração do token
      */
     private Instant dataExpiracao() {
         return LocalDateTime.now().plusHours(2).toInstant(ZoneOffset.of("-03:00"));
     }
+
+    // SHA-256 em hexadecimal, usado para gravar os refresh tokens sem guardar o valor original
+    static String hash(String token) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256"); //MessageDigest não é thread-safe, por isso uma instância por chamada
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 indisponível na JVM", exception);
+        }
+    }
 }
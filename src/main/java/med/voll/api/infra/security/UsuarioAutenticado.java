@@ -0,0 +1,20 @@
+package med.voll.api.infra.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+/**
+ * Principal montado diretamente a partir das claims do token, sem consultar a tabela usuarios
+ */
+public record UsuarioAutenticado(Long id, String login, List<String> perfis) {
+
+    public UsuarioAutenticado(DadosTokenVerificado token) {
+        this(token.idUsuario(), token.login(), token.perfis());
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        return perfis.stream().map(perfil -> (GrantedAuthority) new SimpleGrantedAuthority(perfil)).toList();
+    }
+}
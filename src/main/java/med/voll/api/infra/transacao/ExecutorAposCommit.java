@@ -0,0 +1,27 @@
+package med.voll.api.infra.transacao;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Executa uma ação somente depois do commit da transação corrente (ou imediatamente, se não houver transação).
+ * Usado para manter estruturas em memória sincronizadas com o banco sem refletir escritas que sofreram rollback.
+ */
+public final class ExecutorAposCommit {
+
+    private ExecutorAposCommit() {
+    }
+
+    public static void executar(Runnable acao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            acao.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                acao.run();
+            }
+        });
+    }
+}
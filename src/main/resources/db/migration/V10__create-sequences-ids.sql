@@ -0,0 +1,20 @@
+-- Tabelas de sequência usadas pelo Hibernate (o MySQL não possui sequences, então o Hibernate as emula com uma tabela de uma linha).
+-- Com ids alocados em blocos de 50 (allocationSize), o Hibernate deixa de depender do auto_increment
+-- e consegue enviar os inserts em lote (hibernate.jdbc.batch_size).
+-- O otimizador pooled usa o valor lido como limite superior do bloco, então iniciamos em max(id) + 51
+-- para que o primeiro bloco comece depois dos ids já existentes.
+-- Usuários continuam no auto_increment (GenerationType.IDENTITY): costumam ser inseridos direto no banco e não há lote a ganhar.
+--
+-- Inserts feitos fora da API em medicos, pacientes e consultas devem reservar o id na sequence antes, como o Hibernate faz:
+-- ler o valor atual e somar 50 reserva os ids de (valor - 49) até valor, por exemplo:
+--   update medicos_seq set next_val = last_insert_id(next_val) + 50;
+--   insert into medicos(id, ...) values (last_insert_id(), ...);
+-- Deixar o auto_increment escolher o id pode gerar um id que a API já reservou e causar chave duplicada.
+create table medicos_seq(next_val bigint not null);
+insert into medicos_seq select coalesce(max(id), 0) + 51 from medicos;
+
+create table pacientes_seq(next_val bigint not null);
+insert into pacientes_seq select coalesce(max(id), 0) + 51 from pacientes;
+
+create table consultas_seq(next_val bigint not null);
+insert into consultas_seq select coalesce(max(id), 0) + 51 from consultas;
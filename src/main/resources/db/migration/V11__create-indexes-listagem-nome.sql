@@ -0,0 +1,2 @@
+create index idx_medicos_ativo_nome_id on medicos(ativo, nome, id);
+create index idx_pacientes_ativo_nome_id on pacientes(ativo, nome, id);
@@ -0,0 +1,31 @@
+-- Consultas ativas duplicadas (mesmo médico e horário) impedem o índice único: a mais antiga de cada horário é mantida e as demais
+-- são canceladas com motivo OUTROS. Antes disso as canceladas são copiadas para consultas_canceladas_v13, para que possam ser
+-- conferidas e os pacientes avisados (a tabela fica vazia quando não havia duplicadas)
+create table consultas_canceladas_v13(
+    consulta_id bigint not null,
+    consulta_mantida_id bigint not null,
+    medico_id bigint not null,
+    paciente_id bigint not null,
+    data datetime not null,
+    cancelada_em datetime(6) not null default current_timestamp(6),
+
+    primary key(consulta_id)
+);
+
+insert into consultas_canceladas_v13(consulta_id, consulta_mantida_id, medico_id, paciente_id, data)
+    select c.id, d.id_mantido, c.medico_id, c.paciente_id, c.data from consultas c
+        join (
+            select medico_id, data, min(id) as id_mantido from consultas
+                where motivo_cancelamento is null
+                group by medico_id, data
+                having count(*) > 1
+        ) d on c.medico_id = d.medico_id and c.data = d.data
+        where c.motivo_cancelamento is null and c.id <> d.id_mantido;
+
+update consultas c
+    join consultas_canceladas_v13 a on a.consulta_id = c.id
+    set c.motivo_cancelamento = 'OUTROS';
+
+-- O MySQL não possui índice parcial: a coluna gerada fica nula nas consultas canceladas, e nulos não conflitam no índice único
+alter table consultas add column medico_id_ativo bigint generated always as (if(motivo_cancelamento is null, medico_id, null)) stored;
+create unique index uk_consultas_medico_data_ativa on consultas(medico_id_ativo, data);
@@ -0,0 +1,21 @@
+-- Refresh tokens opacos: apenas o hash (SHA-256) é gravado. Cada login inicia uma família, e cada renovação
+-- marca o token usado e emite o próximo da mesma família, permitindo revogar a família inteira se um token usado reaparecer.
+create table refresh_tokens(
+    id bigint not null auto_increment,
+    hash char(64) not null,
+    familia varchar(36) not null,
+    usuario_id bigint not null,
+    login varchar(100) not null,
+    criado_em datetime(6) not null,
+    expira_em datetime(6) not null,
+    usado_em datetime(6),
+    revogado_em datetime(6),
+
+    primary key(id),
+    constraint uk_refresh_tokens_hash unique(hash),
+    constraint fk_refresh_tokens_usuario_id foreign key(usuario_id) references usuarios(id)
+);
+
+create index idx_refresh_tokens_familia on refresh_tokens(familia);
+create index idx_refresh_tokens_login on refresh_tokens(login);
+create index idx_refresh_tokens_expira_em on refresh_tokens(expira_em);
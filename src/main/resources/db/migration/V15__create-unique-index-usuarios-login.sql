@@ -0,0 +1,3 @@
+-- Toda autenticação busca o usuário pelo login: sem índice, a busca percorre a tabela inteira.
+-- Único, pois o login identifica o usuário (se houver logins repetidos, a migration falha e eles precisam ser resolvidos antes)
+create unique index uk_usuarios_login on usuarios(login);
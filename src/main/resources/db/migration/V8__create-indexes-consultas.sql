@@ -0,0 +1,9 @@
+-- ValidadorMedicoComOutraConsultaNoMesmoHorario: medico_id = ? and data = ? and motivo_cancelamento is null
+create index idx_consultas_medico_data_motivo on consultas(medico_id, data, motivo_cancelamento);
+
+-- ValidadorPacienteSemOutraConsultaNoDia: paciente_id = ? and data between ? and ?
+create index idx_consultas_paciente_data on consultas(paciente_id, data);
+
+-- Subquery de escolherMedicoAleatorioLivreNaData (data = ? and motivo_cancelamento is null -> medico_id)
+-- e carga do IndiceOcupacaoAgenda (data >= ? and motivo_cancelamento is null -> medico_id, paciente_id), ambas cobertas pelo índice
+create index idx_consultas_data_motivo_medico_paciente on consultas(data, motivo_cancelamento, medico_id, paciente_id);
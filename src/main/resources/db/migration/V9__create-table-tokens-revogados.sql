@@ -0,0 +1,11 @@
+create table tokens_revogados(
+    id bigint not null auto_increment,
+    id_token varchar(36),
+    login varchar(100),
+    revogado_em datetime(6) not null,
+    expira_em datetime(6) not null,
+
+    primary key(id)
+);
+
+create index idx_tokens_revogados_expira_em on tokens_revogados(expira_em);
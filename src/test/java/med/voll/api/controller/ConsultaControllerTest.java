@@ -2,7 +2,9 @@ package med.voll.api.controller;
 
 import med.voll.api.domain.consulta.AgendaDeConsultas;
 import med.voll.api.domain.consulta.DadosAgendamentoConsulta;
+import med.voll.api.domain.consulta.DadosAgendamentoLote;
 import med.voll.api.domain.consulta.DadosDetalhamentoConsulta;
+import med.voll.api.domain.consulta.DadosResultadoAgendamentoLote;
 import med.voll.api.domain.medico.Especialidade;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -18,6 +20,7 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -38,6 +41,12 @@ class ConsultaControllerTest {
     @Autowired
     private JacksonTester<DadosDetalhamentoConsulta> dadosDetalhamentoConsultaJson; //Também evita escrever JSON manualmente
 
+    @Autowired
+    private JacksonTester<DadosAgendamentoLote> dadosAgendamentoLoteJson;
+
+    @Autowired
+    private JacksonTester<DadosResultadoAgendamentoLote> dadosResultadoAgendamentoLoteJson;
+
     @MockitoBean
     private AgendaDeConsultas agendaDeConsultas; //Esse é o mock do service que o controller chama internamente (Evitando acessar o banco)
 
@@ -87,4 +96,45 @@ class ConsultaControllerTest {
 
         assertThat(response.getContentAsString()).isEqualTo(jsonEsperado); //Compara o JSON retornado exatamente com o esperado(o mesmo que o mock devolveu)
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Deveria devolver código 400 quando o lote de consultas estiver vazio")
+    @WithMockUser
+    void agendarEmLote_cenario1() throws Exception {
+        var response = mvc
+                .perform(
+                    post("/consultas/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(dadosAgendamentoLoteJson.write(new DadosAgendamentoLote(List.of())).getJson())
+                ).andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+    }
+
+    @Test
+    @DisplayName("Deveria devolver código 200 com o resultado de cada item do lote")
+    @WithMockUser
+    void agendarEmLote_cenario2() throws Exception {
+        var data = LocalDateTime.now().plusDays(1);
+        var lote = new DadosAgendamentoLote(List.of(
+                new DadosAgendamentoConsulta(2l, 5l, data, null),
+                new DadosAgendamentoConsulta(2l, 6l, data, null)
+        ));
+        var resultado = new DadosResultadoAgendamentoLote(List.of(
+                new DadosResultadoAgendamentoLote.Item(0, true, new DadosDetalhamentoConsulta(1l, 2l, 5l, data), null),
+                DadosResultadoAgendamentoLote.Item.rejeitada(1, "Médico já possui outra consulta agendada nesse mesmo horário")
+        ));
+
+        when(agendaDeConsultas.agendarEmLote(any())).thenReturn(resultado);
+
+        var response = mvc
+                .perform(
+                    post("/consultas/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(dadosAgendamentoLoteJson.write(lote).getJson())
+                ).andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getContentAsString()).isEqualTo(dadosResultadoAgendamentoLoteJson.write(resultado).getJson());
+    }
+}
@@ -10,15 +10,21 @@ import org.springframework.boot.test.autoconfigure.json.AutoConfigureJsonTesters
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.json.JacksonTester;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.Optional;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 
 @SpringBootTest
@@ -87,6 +93,39 @@ class MedicoControllerTest {
         assertThat(response.getContentAsString()).isEqualTo(jsonEsperado);
     }
 
+    @Test
+    @DisplayName("Deveria devolver codigo http 304 sem carregar o medico quando o ETag informado for o atual")
+    @WithMockUser
+    void detalhar_cenario1() throws Exception {
+        when(repository.findVersaoById(1l)).thenReturn(3l);
+
+        var response = mvc
+                .perform(get("/medicos/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        assertThat(response.getContentAsString()).isEmpty();
+        verify(repository, never()).findDetalhamentoById(any());
+    }
+
+    @Test
+    @DisplayName("Deveria devolver codigo http 200 com o ETag da versao atual quando o informado estiver desatualizado")
+    @WithMockUser
+    void detalhar_cenario2() throws Exception {
+        var dadosDetalhamento = new DadosDetalhamentoMedico(1l, "Medico", "medico@voll.med", "123456", "61999999999",
+                Especialidade.CARDIOLOGIA, new Endereco(dadosEndereco()));
+        when(repository.findVersaoById(1l)).thenReturn(4l);
+        when(repository.findDetalhamentoById(1l)).thenReturn(Optional.of(dadosDetalhamento));
+
+        var response = mvc
+                .perform(get("/medicos/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"4\"");
+        assertThat(response.getContentAsString()).isEqualTo(dadosDetalhamentoMedicoJson.write(dadosDetalhamento).getJson());
+    }
+
     private DadosEndereco dadosEndereco() {
         return new DadosEndereco(
                 "rua xpto",
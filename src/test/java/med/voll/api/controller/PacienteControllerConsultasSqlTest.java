@@ -0,0 +1,94 @@
+package med.voll.api.controller;
+
+import med.voll.api.domain.endereco.DadosEndereco;
+import med.voll.api.domain.paciente.DadosCadastroPaciente;
+import med.voll.api.domain.paciente.Paciente;
+import med.voll.api.domain.paciente.PacienteRepository;
+import med.voll.api.infra.http.ETagVersao;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static med.voll.api.infra.metricas.ConsultasSqlAssertions.assertConsultasSql;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Fixa quantos comandos SQL os endpoints de leitura de pacientes executam contra o banco real (sem repository mockado),
+ * pelo cabeçalho X-Consultas-Sql, ligado no profile test (api.sql.cabecalhos)
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PacienteControllerConsultasSqlTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private PacienteRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private Paciente paciente;
+
+    @BeforeEach
+    void cadastrar() {
+        paciente = repository.save(new Paciente(new DadosCadastroPaciente("Paciente Sql", "sql.paciente@voll.med", "61999999999",
+                "777.777.777-77", new DadosEndereco("rua xpto", "bairro", "00000000", "DF", "Brasilia", null, null))));
+    }
+
+    @AfterEach
+    void excluir() {
+        jdbc.update("delete from pacientes where email = 'sql.paciente@voll.med'");
+    }
+
+    @Test
+    @DisplayName("Deveria detalhar o paciente com dois comandos SQL: versao e detalhamento")
+    @WithMockUser
+    void detalhar_cenario1() throws Exception {
+        var response = mvc
+                .perform(get("/pacientes/" + paciente.getId()))
+                .andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertConsultasSql(response, 2);
+    }
+
+    @Test
+    @DisplayName("Deveria responder 304 com um unico comando SQL (so a versao) quando o ETag informado for o atual")
+    @WithMockUser
+    void detalhar_cenario2() throws Exception {
+        var etag = ETagVersao.de(repository.findVersaoById(paciente.getId()));
+
+        var response = mvc
+                .perform(get("/pacientes/" + paciente.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        assertConsultasSql(response, 1);
+    }
+
+    @Test
+    @DisplayName("Deveria listar a primeira pagina por cursor com um unico comando SQL quando o total nao for solicitado")
+    @WithMockUser
+    void listarPorCursor_cenario1() throws Exception {
+        var response = mvc
+                .perform(get("/pacientes/cursor"))
+                .andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertConsultasSql(response, 1);
+    }
+}
@@ -0,0 +1,139 @@
+package med.voll.api.controller;
+
+import med.voll.api.domain.endereco.DadosEndereco;
+import med.voll.api.domain.endereco.Endereco;
+import med.voll.api.domain.paciente.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJsonTesters;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.json.JacksonTester;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureJsonTesters
+class PacienteControllerTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JacksonTester<DadosAtualizacaoPaciente> dadosAtualizacaoPacienteJson;
+
+    @Autowired
+    private JacksonTester<DadosDetalhamentoPaciente> dadosDetalhamentoPacienteJson;
+
+    @MockitoBean
+    private PacienteRepository repository;
+
+    @Test
+    @DisplayName("Deveria devolver codigo http 304 sem carregar o paciente quando o ETag informado for o atual")
+    @WithMockUser
+    void detalhar_cenario1() throws Exception {
+        when(repository.findVersaoById(1l)).thenReturn(3l);
+
+        var response = mvc
+                .perform(get("/pacientes/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        assertThat(response.getContentAsString()).isEmpty();
+        verify(repository, never()).findDetalhamentoById(any());
+    }
+
+    @Test
+    @DisplayName("Deveria devolver codigo http 200 com o ETag da versao atual quando o informado estiver desatualizado")
+    @WithMockUser
+    void detalhar_cenario2() throws Exception {
+        var dadosDetalhamento = new DadosDetalhamentoPaciente(1l, "Paciente", "paciente@voll.med", "61999999999",
+                "123.456.789-00", new Endereco(dadosEndereco()));
+        when(repository.findVersaoById(1l)).thenReturn(4l);
+        when(repository.findDetalhamentoById(1l)).thenReturn(Optional.of(dadosDetalhamento));
+
+        var response = mvc
+                .perform(get("/pacientes/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"4\"");
+        assertThat(response.getContentAsString()).isEqualTo(dadosDetalhamentoPacienteJson.write(dadosDetalhamento).getJson());
+    }
+
+    @Test
+    @DisplayName("Deveria devolver codigo http 412 sem alterar o paciente quando o If-Match nao for a versao atual")
+    @WithMockUser
+    void atualizar_cenario1() throws Exception {
+        var paciente = paciente(4l);
+        when(repository.getReferenceById(1l)).thenReturn(paciente);
+
+        var response = mvc
+                .perform(put("/pacientes")
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(dadosAtualizacaoPacienteJson.write(new DadosAtualizacaoPaciente(1l, "Outro Nome", null, null)).getJson()))
+                .andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.PRECONDITION_FAILED.value());
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"4\"");
+        assertThat(paciente.getNome()).isEqualTo("Paciente");
+        verify(repository, never()).flush();
+    }
+
+    @Test
+    @DisplayName("Deveria devolver codigo http 200 com o ETag quando o If-Match for a versao atual")
+    @WithMockUser
+    void atualizar_cenario2() throws Exception {
+        var paciente = paciente(4l);
+        when(repository.getReferenceById(1l)).thenReturn(paciente);
+
+        var response = mvc
+                .perform(put("/pacientes")
+                        .header(HttpHeaders.IF_MATCH, "\"4\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(dadosAtualizacaoPacienteJson.write(new DadosAtualizacaoPaciente(1l, "Outro Nome", null, null)).getJson()))
+                .andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"4\""); //Repository mockado: o flush não incrementa a versão
+        assertThat(paciente.getNome()).isEqualTo("Outro Nome");
+        verify(repository).flush();
+    }
+
+    private Paciente paciente(Long versao) {
+        var paciente = new Paciente(new DadosCadastroPaciente("Paciente", "paciente@voll.med", "61999999999", "123.456.789-00", dadosEndereco()));
+        ReflectionTestUtils.setField(paciente, "id", 1l);
+        ReflectionTestUtils.setField(paciente, "versao", versao);
+        return paciente;
+    }
+
+    private DadosEndereco dadosEndereco() {
+        return new DadosEndereco(
+                "rua xpto",
+                "bairro",
+                "00000000",
+                "Brasilia",
+                "DF",
+                null,
+                null
+        );
+    }
+}
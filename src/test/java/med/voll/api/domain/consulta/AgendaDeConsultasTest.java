@@ -0,0 +1,307 @@
+package med.voll.api.domain.consulta;
+
+import jakarta.persistence.EntityManagerFactory;
+import med.voll.api.domain.ValidacaoException;
+import med.voll.api.domain.consulta.validacoes.agendamento.ValidadorMedicoComOutraConsultaNoMesmoHorario;
+import med.voll.api.domain.endereco.DadosEndereco;
+import med.voll.api.domain.medico.DadosCadastroMedico;
+import med.voll.api.domain.medico.DisponibilidadeMedicos;
+import med.voll.api.domain.medico.Especialidade;
+import med.voll.api.domain.medico.Medico;
+import med.voll.api.domain.medico.MedicoRepository;
+import med.voll.api.domain.paciente.DadosCadastroPaciente;
+import med.voll.api.domain.paciente.Paciente;
+import med.voll.api.domain.paciente.PacienteRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+import static med.voll.api.infra.metricas.ConsultasSqlAssertions.contarConsultasSql;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Conta, pelas estatísticas do Hibernate e pelo ContadorConsultasSql, as consultas ao banco feitas por um agendamento:
+ * tudo o que os validadores precisam vem de ConsultaRepository.verificarAgendamento.
+ * Também cobre o agendamento em lote contra os repositories e índices reais (conflitos dentro do próprio lote,
+ * erros por item dos validadores, os conflitos que só o banco conhece e o horário reservado por outra requisição
+ * entre a validação e a gravação)
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AgendaDeConsultasTest {
+
+    @Autowired
+    private AgendaDeConsultas agenda;
+
+    @Autowired
+    private MedicoRepository medicoRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private ConsultaRepository consultaRepository;
+
+    @Autowired
+    private IndiceOcupacaoAgenda indiceOcupacao;
+
+    @Autowired
+    private DisponibilidadeMedicos disponibilidadeMedicos;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @MockitoSpyBean
+    private ValidadorMedicoComOutraConsultaNoMesmoHorario validadorHorarioMedico;
+
+    private TransactionTemplate transacao;
+
+    private Statistics estatisticas;
+
+    private Long idMedico;
+
+    private Long idPaciente;
+
+    private final LocalDateTime proximaSegundaAs10 = LocalDate.now()
+            .with(TemporalAdjusters.next(DayOfWeek.MONDAY))
+            .atTime(10, 0);
+
+    @BeforeEach
+    void cadastrar() {
+        transacao = new TransactionTemplate(transactionManager);
+        estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        idMedico = cadastrarMedico(1, Especialidade.CARDIOLOGIA);
+        idPaciente = cadastrarPaciente(1);
+        estatisticas.clear();
+    }
+
+    @AfterEach
+    void excluir() {
+        jdbc.update("delete from consultas where paciente_id in (select id from pacientes where email like 'agenda.paciente%')");
+        jdbc.update("delete from consultas where medico_id in (select id from medicos where email like 'agenda.medico%')");
+        jdbc.update("delete from pacientes where email like 'agenda.paciente%'");
+        jdbc.update("delete from medicos where email like 'agenda.medico%'");
+        indiceOcupacao.carregar();
+        disponibilidadeMedicos.carregar();
+    }
+
+    @Test
+    @DisplayName("Deveria agendar com uma única consulta ao banco, sem carregar médico nem paciente")
+    void agendarCenario1() {
+        transacao.executeWithoutResult(status -> agenda.agendar(new DadosAgendamentoConsulta(idMedico, idPaciente, proximaSegundaAs10, null)));
+
+        assertThat(estatisticas.getQueryExecutionCount()).isEqualTo(1);
+        assertThat(estatisticas.getEntityLoadCount()).isZero();
+        assertThat(estatisticas.getEntityInsertCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deveria rejeitar médico ocupado com a mesma mensagem e uma única consulta ao banco")
+    void agendarCenario2() {
+        var outroPaciente = cadastrarPaciente(2); //Paciente diferente, para que o único conflito seja o horário do médico
+        transacao.executeWithoutResult(status -> agenda.agendar(new DadosAgendamentoConsulta(idMedico, outroPaciente, proximaSegundaAs10, null)));
+        estatisticas.clear();
+
+        assertThatThrownBy(() -> transacao.executeWithoutResult(status ->
+                agenda.agendar(new DadosAgendamentoConsulta(idMedico, idPaciente, proximaSegundaAs10, null))))
+                .isInstanceOf(ValidacaoException.class)
+                .hasMessage("Médico já possui outra consulta agendada nesse mesmo horário");
+        assertThat(estatisticas.getQueryExecutionCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deveria agendar com dois comandos SQL (verificação e insert), mais a reserva de ids da consultas_seq quando o bloco acabar")
+    void agendarCenario3() {
+        var comandos = contarConsultasSql(() -> transacao.executeWithoutResult(status ->
+                agenda.agendar(new DadosAgendamentoConsulta(idMedico, idPaciente, proximaSegundaAs10, null))));
+
+        assertThat(comandos).isIn(2, 4); //A cada 50 consultas o Hibernate lê e atualiza a consultas_seq (allocationSize)
+    }
+
+    @Test
+    @DisplayName("Deveria rejeitar médico ocupado com um único comando SQL, sem insert")
+    void agendarCenario4() {
+        var outroPaciente = cadastrarPaciente(2);
+        transacao.executeWithoutResult(status -> agenda.agendar(new DadosAgendamentoConsulta(idMedico, outroPaciente, proximaSegundaAs10, null)));
+
+        var comandos = contarConsultasSql(() -> assertThatThrownBy(() -> transacao.executeWithoutResult(status ->
+                agenda.agendar(new DadosAgendamentoConsulta(idMedico, idPaciente, proximaSegundaAs10, null))))
+                .isInstanceOf(ValidacaoException.class));
+
+        assertThat(comandos).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deveria rejeitar no lote o segundo item com o mesmo médico e horário de um item anterior do próprio lote")
+    void agendarEmLoteCenario1() {
+        var outroPaciente = cadastrarPaciente(2);
+
+        var resultado = agendarEmLote(List.of(
+                new DadosAgendamentoConsulta(idMedico, idPaciente, proximaSegundaAs10, null),
+                new DadosAgendamentoConsulta(idMedico, outroPaciente, proximaSegundaAs10, null)));
+
+        assertThat(resultado.agendadas()).isEqualTo(1);
+        assertThat(resultado.itens().get(0).sucesso()).isTrue();
+        assertThat(resultado.itens().get(1).erro()).isEqualTo("Médico já possui outra consulta agendada nesse mesmo horário");
+        assertThat(consultaRepository.existsByMedicoIdAndDataAndMotivoCancelamentoIsNull(idMedico, proximaSegundaAs10)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deveria rejeitar no lote o segundo item do mesmo paciente no mesmo dia, ainda que em outro horário")
+    void agendarEmLoteCenario2() {
+        var resultado = agendarEmLote(List.of(
+                new DadosAgendamentoConsulta(idMedico, idPaciente, proximaSegundaAs10, null),
+                new DadosAgendamentoConsulta(idMedico, idPaciente, proximaSegundaAs10.withHour(14), null),
+                new DadosAgendamentoConsulta(idMedico, idPaciente, proximaSegundaAs10.plusDays(1), null)));
+
+        assertThat(resultado.agendadas()).isEqualTo(2);
+        assertThat(resultado.itens().get(1).sucesso()).isFalse();
+        assertThat(resultado.itens().get(1).erro()).isEqualTo("Paciente ja possui outra consulta agendada nesse dia");
+        assertThat(resultado.itens().get(2).sucesso()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deveria devolver o erro de cada item rejeitado pelos validadores e agendar os demais")
+    void agendarEmLoteCenario3() {
+        var pacienteInativo = cadastrarPaciente(2);
+        jdbc.update("update pacientes set ativo = 0 where id = ?", pacienteInativo);
+        var domingo = proximaSegundaAs10.plusDays(6);
+
+        var resultado = agendarEmLote(List.of(
+                new DadosAgendamentoConsulta(idMedico, idPaciente, domingo, null),
+                new DadosAgendamentoConsulta(idMedico, pacienteInativo, proximaSegundaAs10.withHour(11), null),
+                new DadosAgendamentoConsulta(idMedico, 0l, proximaSegundaAs10.withHour(12), null),
+                new DadosAgendamentoConsulta(idMedico, idPaciente, proximaSegundaAs10, null)));
+
+        assertThat(resultado.agendadas()).isEqualTo(1);
+        assertThat(resultado.rejeitadas()).isEqualTo(3);
+        assertThat(resultado.itens()).extracting(DadosResultadoAgendamentoLote.Item::erro).containsExactly(
+                "Consulta fora do horário de funcionamento da clinica!",
+                "Consulta nao pode ser agendada com paciente inativo!",
+                "Id do paciente informado não existe!",
+                null);
+    }
+
+    @Test
+    @DisplayName("Deveria escolher médicos diferentes para itens do lote sem médico no mesmo horário")
+    void agendarEmLoteCenario4() {
+        cadastrarMedico(2, Especialidade.DERMATOLOGIA);
+        cadastrarMedico(3, Especialidade.DERMATOLOGIA);
+        var outroPaciente = cadastrarPaciente(2);
+
+        var resultado = agendarEmLote(List.of(
+                new DadosAgendamentoConsulta(null, idPaciente, proximaSegundaAs10, Especialidade.DERMATOLOGIA),
+                new DadosAgendamentoConsulta(null, outroPaciente, proximaSegundaAs10, Especialidade.DERMATOLOGIA)));
+
+        assertThat(resultado.agendadas()).isEqualTo(2);
+        assertThat(resultado.itens().get(0).consulta().idMedico()).isNotEqualTo(resultado.itens().get(1).consulta().idMedico());
+    }
+
+    @Test
+    @DisplayName("Deveria rejeitar no lote, pelo banco, o horário de médico ocupado que o índice em memória não conhece e agendar os demais")
+    void agendarEmLoteCenario5() {
+        var outroPaciente = cadastrarPaciente(2);
+        var terceiroPaciente = cadastrarPaciente(3);
+        //Gravada sem passar pela agenda (como por outra instância), então o índice de ocupação em memória não a conhece
+        gravarSemIndice(idMedico, outroPaciente, proximaSegundaAs10);
+
+        var resultado = agendarEmLote(List.of(
+                new DadosAgendamentoConsulta(idMedico, terceiroPaciente, proximaSegundaAs10.withHour(11), null),
+                new DadosAgendamentoConsulta(idMedico, idPaciente, proximaSegundaAs10, null)));
+
+        assertThat(resultado.agendadas()).isEqualTo(1);
+        assertThat(resultado.itens().get(0).sucesso()).isTrue();
+        assertThat(resultado.itens().get(1).erro()).isEqualTo("Médico já possui outra consulta agendada nesse mesmo horário");
+    }
+
+    @Test
+    @DisplayName("Deveria rejeitar no lote, pelo banco, o dia de paciente ocupado que o índice em memória não conhece")
+    void agendarEmLoteCenario6() {
+        var outroMedico = cadastrarMedico(2, Especialidade.CARDIOLOGIA);
+        gravarSemIndice(outroMedico, idPaciente, proximaSegundaAs10.withHour(15));
+
+        var resultado = agendarEmLote(List.of(
+                new DadosAgendamentoConsulta(idMedico, idPaciente, proximaSegundaAs10, null),
+                new DadosAgendamentoConsulta(idMedico, idPaciente, proximaSegundaAs10.plusDays(1), null)));
+
+        assertThat(resultado.agendadas()).isEqualTo(1);
+        assertThat(resultado.itens().get(0).erro()).isEqualTo("Paciente ja possui outra consulta agendada nesse dia");
+        assertThat(resultado.itens().get(1).sucesso()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deveria rejeitar apenas o item cujo horário outra requisição reservou entre a validação e a gravação e agendar os demais")
+    void agendarEmLoteCenario7() {
+        var outroPaciente = cadastrarPaciente(2);
+        var terceiroPaciente = cadastrarPaciente(3);
+        //Outra requisição grava o mesmo médico e horário, em sua própria transação, logo depois de o lote passar pelo validador
+        doAnswer(invocacao -> {
+            var erros = invocacao.callRealMethod();
+            var concorrente = new TransactionTemplate(transactionManager);
+            concorrente.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            concorrente.executeWithoutResult(status -> consultaRepository.save(new Consulta(null, medicoRepository.getReferenceById(idMedico),
+                    pacienteRepository.getReferenceById(outroPaciente), proximaSegundaAs10, null)));
+            return erros;
+        }).when(validadorHorarioMedico).validarLote(any());
+
+        var resultado = agendarEmLote(List.of(
+                new DadosAgendamentoConsulta(idMedico, idPaciente, proximaSegundaAs10, null),
+                new DadosAgendamentoConsulta(idMedico, terceiroPaciente, proximaSegundaAs10.withHour(11), null)));
+
+        assertThat(resultado.agendadas()).isEqualTo(1);
+        assertThat(resultado.itens().get(0).erro()).isEqualTo("Médico já possui outra consulta agendada nesse mesmo horário");
+        assertThat(resultado.itens().get(1).sucesso()).isTrue();
+        assertThat(consultaRepository.existsByMedicoIdAndDataAndMotivoCancelamentoIsNull(idMedico, proximaSegundaAs10.withHour(11))).isTrue();
+        assertThat(indiceOcupacao.medicoOcupado(idMedico, proximaSegundaAs10.withHour(11))).isTrue();
+    }
+
+    // Sem transação em volta, como no ConsultaController: a agenda grava o lote em transações próprias
+    private DadosResultadoAgendamentoLote agendarEmLote(List<DadosAgendamentoConsulta> lote) {
+        return agenda.agendarEmLote(lote);
+    }
+
+    private void gravarSemIndice(Long medico, Long paciente, LocalDateTime data) {
+        transacao.executeWithoutResult(status -> consultaRepository.save(new Consulta(null, medicoRepository.getReferenceById(medico),
+                pacienteRepository.getReferenceById(paciente), data, null)));
+    }
+
+    private Long cadastrarMedico(int numero, Especialidade especialidade) {
+        return transacao.execute(status -> medicoRepository.save(new Medico(new DadosCadastroMedico(
+                "Medico Agenda " + numero, "agenda.medico" + numero + "@voll.med", "61999999999", "66666%d".formatted(numero), especialidade, dadosEndereco()))).getId());
+    }
+
+    private Long cadastrarPaciente(int numero) {
+        return transacao.execute(status -> pacienteRepository.save(new Paciente(new DadosCadastroPaciente(
+                "Paciente Agenda " + numero, "agenda.paciente" + numero + "@voll.med", "61999999999", "66666666%03d".formatted(numero), dadosEndereco()))).getId());
+    }
+
+    private DadosEndereco dadosEndereco() {
+        return new DadosEndereco("rua xpto", "bairro", "00000000", "DF", "Brasilia", null, null);
+    }
+}
@@ -0,0 +1,140 @@
+package med.voll.api.domain.consulta;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static med.voll.api.domain.consulta.validacoes.agendamento.ValidadorHorarioFuncionamentoClinica.HORA_ABERTURA;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark da agenda em bits na escala de 50 mil médicos e 365 dias com todos os horários ocupados:
+ * mede a memória ocupada e as operações por segundo das consultas usadas pelo agendamento.
+ * Depende da máquina, então fica fora do mvn test padrão (rode com mvn test -Pdesempenho).
+ * Os números medidos são impressos na saída do teste, e os limites dos asserts têm folga para máquinas mais lentas.
+ */
+@Tag("desempenho")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AgendaEmBitsDesempenhoTest {
+
+    private static final int MEDICOS = 50_000;
+    private static final int DIAS = 365;
+    private static final int OPERACOES = 10_000_000;
+
+    private static final long MEMORIA_MAXIMA_MB = 40; //Estimativa da AgendaEmBits: cerca de 27 MB
+    private static final long MINIMO_VERIFICACOES_POR_SEGUNDO = 5_000_000;
+    private static final long MINIMO_ESCOLHAS_POR_SEGUNDO = 10_000;
+
+    private final LocalDate inicio = LocalDate.now().plusDays(1);
+
+    private final List<LocalDateTime> horarios = new ArrayList<>();
+
+    private AgendaEmBits agenda;
+
+    private long memoriaMb;
+
+    @BeforeAll
+    void ocuparTodosOsHorarios() {
+        for (var dia = inicio; dia.isBefore(inicio.plusDays(DIAS)); dia = dia.plusDays(1)) {
+            if (dia.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                continue;
+            }
+            for (int posicao = 0; posicao < AgendaEmBits.HORARIOS_POR_DIA; posicao++) {
+                horarios.add(dia.atTime(HORA_ABERTURA + posicao, 0));
+            }
+        }
+
+        var antes = memoriaUsada();
+        agenda = new AgendaEmBits();
+        for (var horario : horarios) {
+            for (int medico = MEDICOS - 1; medico >= 0; medico--) { //Do maior para o menor, para cada BitSet alocar o tamanho final uma única vez
+                agenda.marcar(medico, horario);
+            }
+        }
+        memoriaMb = (memoriaUsada() - antes) / (1024 * 1024);
+        System.out.printf("AgendaEmBits: %d médicos x %d dias (%d horários) ocupando %d MB%n", MEDICOS, DIAS, horarios.size(), memoriaMb);
+    }
+
+    @Test
+    @DisplayName("Deveria guardar 50 mil médicos x 365 dias totalmente ocupados em poucas dezenas de MB")
+    void memoria() {
+        assertThat(agenda.totalMarcados(inicio)).isEqualTo((long) MEDICOS * horarios.size());
+        assertThat(memoriaMb).as("memória da agenda em MB").isLessThanOrEqualTo(MEMORIA_MAXIMA_MB);
+    }
+
+    @Test
+    @DisplayName("Deveria verificar conflito de horário do médico (teste de bit) em milhões de operações por segundo")
+    void verificacaoDeConflito() {
+        var aleatorio = new SplittableRandom(42);
+        verificar(aleatorio, OPERACOES / 10); //Aquecimento do JIT
+
+        var inicioMedicao = System.nanoTime();
+        var ocupados = verificar(aleatorio, OPERACOES);
+        var porSegundo = operacoesPorSegundo(OPERACOES, inicioMedicao);
+
+        System.out.printf("AgendaEmBits.ocupado: %,d operações/s%n", porSegundo);
+        assertThat(ocupados).isEqualTo(OPERACOES);
+        assertThat(porSegundo).as("verificações por segundo").isGreaterThanOrEqualTo(MINIMO_VERIFICACOES_POR_SEGUNDO);
+    }
+
+    @Test
+    @DisplayName("Deveria calcular os médicos livres de um horário (cópia + andNot com os ativos) em milhares de operações por segundo")
+    void medicosLivres() {
+        var ativos = new BitSet(MEDICOS);
+        ativos.set(0, MEDICOS, true);
+        var aleatorio = new SplittableRandom(42);
+        livres(ativos, aleatorio, 1_000); //Aquecimento do JIT
+
+        var operacoes = 100_000;
+        var inicioMedicao = System.nanoTime();
+        var livres = livres(ativos, aleatorio, operacoes);
+        var porSegundo = operacoesPorSegundo(operacoes, inicioMedicao);
+
+        System.out.printf("AgendaEmBits.ocupados + andNot: %,d operações/s%n", porSegundo);
+        assertThat(livres).isZero(); //Todos os horários estão ocupados
+        assertThat(porSegundo).as("escolhas por segundo").isGreaterThanOrEqualTo(MINIMO_ESCOLHAS_POR_SEGUNDO);
+    }
+
+    private long verificar(SplittableRandom aleatorio, int operacoes) {
+        var ocupados = 0L;
+        for (int i = 0; i < operacoes; i++) {
+            if (agenda.ocupado(aleatorio.nextInt(MEDICOS), horarios.get(aleatorio.nextInt(horarios.size())))) {
+                ocupados++;
+            }
+        }
+        return ocupados;
+    }
+
+    private long livres(BitSet ativos, SplittableRandom aleatorio, int operacoes) {
+        var livres = 0L;
+        for (int i = 0; i < operacoes; i++) {
+            var candidatos = (BitSet) ativos.clone();
+            candidatos.andNot(agenda.ocupados(horarios.get(aleatorio.nextInt(horarios.size()))));
+            livres += candidatos.cardinality();
+        }
+        return livres;
+    }
+
+    private long operacoesPorSegundo(long operacoes, long inicioNanos) {
+        var nanos = Math.max(1, System.nanoTime() - inicioNanos);
+        return operacoes * 1_000_000_000L / nanos;
+    }
+
+    private long memoriaUsada() {
+        var runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
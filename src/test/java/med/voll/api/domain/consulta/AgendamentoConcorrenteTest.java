@@ -0,0 +1,189 @@
+package med.voll.api.domain.consulta;
+
+import med.voll.api.domain.ValidacaoException;
+import med.voll.api.domain.endereco.DadosEndereco;
+import med.voll.api.domain.medico.DadosCadastroMedico;
+import med.voll.api.domain.medico.DisponibilidadeMedicos;
+import med.voll.api.domain.medico.Especialidade;
+import med.voll.api.domain.medico.Medico;
+import med.voll.api.domain.medico.MedicoRepository;
+import med.voll.api.domain.paciente.DadosCadastroPaciente;
+import med.voll.api.domain.paciente.Paciente;
+import med.voll.api.domain.paciente.PacienteRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dispara milhares de agendamentos simultâneos para poucos horários e verifica que o índice único da V13
+ * impede o agendamento duplo mesmo quando as requisições passam juntas pelos validadores.
+ * Sem @Transactional: cada agendamento roda e é commitado na sua própria transação, como em produção.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AgendamentoConcorrenteTest {
+
+    private static final int TOTAL_MEDICOS = 3;
+    private static final List<Integer> HORAS = List.of(8, 9, 10);
+    private static final int TOTAL_AGENDAMENTOS = 2_000;
+    private static final int THREADS = 32;
+    private static final int VAZAO_MINIMA_POR_SEGUNDO = 200;
+
+    @Autowired
+    private AgendaDeConsultas agenda;
+
+    @Autowired
+    private MedicoRepository medicoRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private IndiceOcupacaoAgenda indiceOcupacao;
+
+    @Autowired
+    private DisponibilidadeMedicos disponibilidadeMedicos;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private TransactionTemplate transacao;
+
+    private List<Long> idsMedicos;
+
+    private List<Long> idsPacientes;
+
+    private final LocalDate proximaSegunda = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+    @BeforeAll
+    void cadastrar() {
+        transacao = new TransactionTemplate(transactionManager);
+        idsMedicos = transacao.execute(status -> medicoRepository.saveAll(IntStream.range(0, TOTAL_MEDICOS)
+                        .mapToObj(i -> new Medico(new DadosCadastroMedico("Medico " + i, "estresse.medico" + i + "@voll.med",
+                                "61999999999", "55555" + i, Especialidade.CARDIOLOGIA, dadosEndereco())))
+                        .toList()))
+                .stream().map(Medico::getId).toList();
+        idsPacientes = transacao.execute(status -> pacienteRepository.saveAll(IntStream.range(0, TOTAL_AGENDAMENTOS)
+                        .mapToObj(i -> new Paciente(new DadosCadastroPaciente("Paciente " + i, "estresse.paciente" + i + "@voll.med",
+                                "61999999999", "5%010d".formatted(i), dadosEndereco())))
+                        .toList()))
+                .stream().map(Paciente::getId).toList();
+    }
+
+    @AfterAll
+    void excluir() {
+        var medicos = idsMedicos.stream().map(String::valueOf).reduce((a, b) -> a + "," + b).orElseThrow();
+        jdbc.update("delete from consultas where medico_id in (" + medicos + ")");
+        jdbc.update("delete from pacientes where email like 'estresse.paciente%'");
+        jdbc.update("delete from medicos where email like 'estresse.medico%'");
+        indiceOcupacao.carregar();
+        disponibilidadeMedicos.carregar();
+    }
+
+    @Test
+    @DisplayName("Deveria agendar exatamente uma consulta por médico e horário sob agendamentos concorrentes")
+    void agendarConcorrente() throws Exception {
+        var resultado = agendarConcorrente(proximaSegunda);
+
+        assertSemAgendamentoDuplo(resultado);
+    }
+
+    @Test
+    @Tag("desempenho") //Depende da máquina e do banco, então fica fora do mvn test padrão (ver profile desempenho no pom)
+    @DisplayName("Deveria sustentar a vazão mínima de agendamentos concorrentes sem agendamento duplo")
+    void vazaoAgendamentoConcorrente() throws Exception {
+        var resultado = agendarConcorrente(proximaSegunda.plusDays(1)); //Outro dia, para não disputar os horários do teste acima
+
+        assertSemAgendamentoDuplo(resultado);
+        assertThat(TOTAL_AGENDAMENTOS * 1000L / Math.max(1, resultado.duracao().toMillis()))
+                .as("agendamentos por segundo")
+                .isGreaterThanOrEqualTo(VAZAO_MINIMA_POR_SEGUNDO);
+    }
+
+    private ResultadoConcorrencia agendarConcorrente(LocalDate dia) throws InterruptedException {
+        var agendadas = new AtomicInteger();
+        var rejeitadas = new AtomicInteger();
+        var errosInesperados = new ConcurrentLinkedQueue<Throwable>();
+        var largada = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(THREADS);
+
+        for (int i = 0; i < TOTAL_AGENDAMENTOS; i++) {
+            var dados = new DadosAgendamentoConsulta(
+                    idsMedicos.get(i % TOTAL_MEDICOS),
+                    idsPacientes.get(i), //Um paciente por tentativa, para que só o horário do médico esteja em disputa
+                    dia.atTime(HORAS.get(i / TOTAL_MEDICOS % HORAS.size()), 0),
+                    null);
+            executor.submit(() -> {
+                largada.await();
+                try {
+                    transacao.executeWithoutResult(status -> agenda.agendar(dados));
+                    agendadas.incrementAndGet();
+                } catch (ValidacaoException ex) {
+                    rejeitadas.incrementAndGet();
+                } catch (Throwable ex) {
+                    errosInesperados.add(ex);
+                }
+                return null;
+            });
+        }
+
+        var inicio = System.nanoTime();
+        largada.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+        return new ResultadoConcorrencia(agendadas.get(), rejeitadas.get(), List.copyOf(errosInesperados), Duration.ofNanos(System.nanoTime() - inicio));
+    }
+
+    private void assertSemAgendamentoDuplo(ResultadoConcorrencia resultado) {
+        var horariosDisponiveis = TOTAL_MEDICOS * HORAS.size();
+        assertThat(resultado.errosInesperados()).isEmpty();
+        assertThat(resultado.agendadas()).isEqualTo(horariosDisponiveis);
+        assertThat(resultado.rejeitadas()).isEqualTo(TOTAL_AGENDAMENTOS - horariosDisponiveis);
+        assertThat(consultasDuplicadas()).isZero();
+    }
+
+    private Long consultasDuplicadas() {
+        return jdbc.queryForObject("""
+                select count(*) from (
+                    select medico_id, data from consultas
+                        where motivo_cancelamento is null and medico_id in (?, ?, ?)
+                        group by medico_id, data
+                        having count(*) > 1
+                ) duplicadas
+                """, Long.class, idsMedicos.toArray());
+    }
+
+    private DadosEndereco dadosEndereco() {
+        return new DadosEndereco("rua xpto", "bairro", "00000000", "DF", "Brasilia", null, null);
+    }
+
+    private record ResultadoConcorrencia(int agendadas, int rejeitadas, List<Throwable> errosInesperados, Duration duracao) {
+    }
+}
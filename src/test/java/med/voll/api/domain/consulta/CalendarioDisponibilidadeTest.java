@@ -0,0 +1,91 @@
+package med.voll.api.domain.consulta;
+
+import med.voll.api.domain.ValidacaoException;
+import med.voll.api.domain.medico.DadosEspecialidadeMedico;
+import med.voll.api.domain.medico.DisponibilidadeMedicos;
+import med.voll.api.domain.medico.Especialidade;
+import med.voll.api.domain.medico.MedicoRepository;
+import med.voll.api.domain.medico.NumeracaoMedicos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CalendarioDisponibilidadeTest {
+
+    @Mock
+    private MedicoRepository medicoRepository;
+
+    @Mock
+    private IndiceOcupacaoAgenda indiceOcupacao;
+
+    private final NumeracaoMedicos numeracao = new NumeracaoMedicos();
+
+    private CalendarioDisponibilidade calendario;
+
+    private final LocalDate proximaSegunda = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+    @BeforeEach
+    void montar() {
+        when(medicoRepository.findEspecialidadeDosAtivos()).thenReturn(List.of(
+                new DadosEspecialidadeMedico(1l, Especialidade.CARDIOLOGIA),
+                new DadosEspecialidadeMedico(2l, Especialidade.CARDIOLOGIA),
+                new DadosEspecialidadeMedico(3l, Especialidade.ORTOPEDIA)));
+        var disponibilidade = new DisponibilidadeMedicos();
+        ReflectionTestUtils.setField(disponibilidade, "repository", medicoRepository);
+        ReflectionTestUtils.setField(disponibilidade, "indiceOcupacao", indiceOcupacao);
+        ReflectionTestUtils.setField(disponibilidade, "numeracao", numeracao);
+        disponibilidade.carregar();
+
+        calendario = new CalendarioDisponibilidade();
+        ReflectionTestUtils.setField(calendario, "disponibilidadeMedicos", disponibilidade);
+    }
+
+    @Test
+    @DisplayName("Deveria devolver os horários de segunda a sábado, descontando os médicos da especialidade ocupados")
+    void consultarCenario1() {
+        lenient().when(indiceOcupacao.medicosOcupados(any())).thenReturn(new BitSet());
+        when(indiceOcupacao.medicosOcupados(proximaSegunda.atTime(8, 0))).thenReturn(ocupados(1l, 2l));
+        when(indiceOcupacao.medicosOcupados(proximaSegunda.atTime(9, 0))).thenReturn(ocupados(1l, 3l));
+
+        var disponibilidade = calendario.consultar(Especialidade.CARDIOLOGIA, proximaSegunda, proximaSegunda.plusDays(6));
+
+        var horarios = disponibilidade.horarios();
+        assertThat(horarios).hasSize(6 * 12 - 1); //Domingo fora, 12 horários por dia, 08h da segunda lotado
+        assertThat(horarios).noneMatch(horario -> horario.data().getDayOfWeek() == DayOfWeek.SUNDAY);
+        assertThat(horarios).noneMatch(horario -> horario.data().equals(proximaSegunda.atTime(8, 0)));
+        assertThat(horarios).contains(new DadosDisponibilidade.Horario(proximaSegunda.atTime(9, 0), 1));
+        assertThat(horarios).contains(new DadosDisponibilidade.Horario(proximaSegunda.atTime(18, 0), 2));
+    }
+
+    @Test
+    @DisplayName("Deveria rejeitar período maior que 31 dias")
+    void consultarCenario2() {
+        assertThatThrownBy(() -> calendario.consultar(Especialidade.CARDIOLOGIA, proximaSegunda, proximaSegunda.plusDays(40)))
+                .isInstanceOf(ValidacaoException.class);
+    }
+
+    private BitSet ocupados(Long... ids) {
+        var ocupados = new BitSet();
+        for (Long id : ids) {
+            ocupados.set(numeracao.numero(id));
+        }
+        return ocupados;
+    }
+}
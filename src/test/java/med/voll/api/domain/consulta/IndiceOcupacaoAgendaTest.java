@@ -0,0 +1,161 @@
+package med.voll.api.domain.consulta;
+
+import med.voll.api.domain.medico.Medico;
+import med.voll.api.domain.medico.NumeracaoMedicos;
+import med.voll.api.domain.paciente.Paciente;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class) //Teste unitário: o repository é mockado, então não precisa subir o contexto do Spring nem o banco
+class IndiceOcupacaoAgendaTest {
+
+    @Mock
+    private ConsultaRepository repository;
+
+    @Spy
+    private NumeracaoMedicos numeracao = new NumeracaoMedicos();
+
+    @InjectMocks
+    private IndiceOcupacaoAgenda indice;
+
+    private long ultimoId = 100;
+
+    private final LocalDateTime proximaSegundaAs10 = LocalDate.now()
+            .with(TemporalAdjusters.next(DayOfWeek.MONDAY))
+            .atTime(10, 0);
+
+    @Test
+    @DisplayName("Deveria marcar médico e paciente como ocupados após carregar as consultas do banco")
+    void carregarCenario1() {
+        when(repository.findOcupacaoAtivaAPartirDe(any())).thenReturn(List.of(new DadosOcupacaoConsulta(10l, 1l, 2l, proximaSegundaAs10)));
+
+        indice.carregar();
+
+        assertThat(indice.medicoOcupado(1l, proximaSegundaAs10)).isTrue();
+        assertThat(indice.medicoOcupado(1l, proximaSegundaAs10.plusHours(1))).isFalse();
+        assertThat(indice.pacienteOcupadoNoDia(2l, proximaSegundaAs10.toLocalDate())).isTrue();
+        assertThat(indice.pacienteOcupadoNoDia(2l, proximaSegundaAs10.toLocalDate().plusDays(1))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deveria liberar o horário do médico e o dia do paciente quando a consulta for cancelada")
+    void liberarCenario1() {
+        var consulta = consulta(1l, 2l, proximaSegundaAs10);
+
+        indice.registrar(consulta);
+        indice.liberar(consulta);
+
+        assertThat(indice.medicoOcupado(1l, proximaSegundaAs10)).isFalse();
+        assertThat(indice.pacienteOcupadoNoDia(2l, proximaSegundaAs10.toLocalDate())).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deveria detectar divergência com o banco e recarregar o índice")
+    void verificarConsistenciaCenario1() {
+        indice.registrar(consulta(1l, 2l, proximaSegundaAs10));
+        when(repository.findOcupacaoAtivaAPartirDe(any())).thenReturn(List.of(new DadosOcupacaoConsulta(11l, 3l, 4l, proximaSegundaAs10)));
+
+        assertThat(indice.verificarConsistencia()).isFalse();
+        assertThat(indice.medicoOcupado(1l, proximaSegundaAs10)).isFalse();
+        assertThat(indice.medicoOcupado(3l, proximaSegundaAs10)).isTrue();
+        assertThat(indice.verificarConsistencia()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deveria manter a consulta registrada enquanto o índice era reconstruído a partir do banco")
+    void verificarConsistenciaCenario2() {
+        var gravadaDuranteRecarga = consulta(1l, 2l, proximaSegundaAs10);
+        when(repository.findOcupacaoAtivaAPartirDe(any())).thenAnswer(invocacao -> {
+            indice.registrar(gravadaDuranteRecarga); //Commit após a leitura da tabela, que não a enxergou
+            return List.of(new DadosOcupacaoConsulta(11l, 3l, 4l, proximaSegundaAs10));
+        });
+
+        assertThat(indice.verificarConsistencia()).isFalse();
+
+        assertThat(indice.medicoOcupado(1l, proximaSegundaAs10)).isTrue();
+        assertThat(indice.pacienteOcupadoNoDia(2l, proximaSegundaAs10.toLocalDate())).isTrue();
+        assertThat(indice.medicoOcupado(3l, proximaSegundaAs10)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deveria liberar o dia do paciente mesmo quando a consulta já lida do banco também for reaplicada")
+    void carregarCenario2() {
+        var consulta = consulta(1l, 2l, proximaSegundaAs10);
+        when(repository.findOcupacaoAtivaAPartirDe(any())).thenAnswer(invocacao -> {
+            indice.registrar(consulta); //Commit antes da leitura, mas registrado depois do início da recarga
+            return List.of(new DadosOcupacaoConsulta(consulta));
+        });
+
+        indice.carregar();
+        indice.liberar(consulta);
+
+        assertThat(indice.pacienteOcupadoNoDia(2l, proximaSegundaAs10.toLocalDate())).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deveria descartar os dias que ficaram no passado a cada verificação, sem precisar recarregar o índice")
+    void verificarConsistenciaCenario2() {
+        var passada = consulta(1l, 2l, proximaSegundaAs10);
+        var foraDaGrade = consulta(1l, 3l, proximaSegundaAs10.plusMinutes(30));
+        var futura = consulta(1l, 2l, proximaSegundaAs10.plusDays(7));
+        indice.registrar(passada);
+        indice.registrar(foraDaGrade);
+        indice.registrar(futura);
+        avancarRelogioPara(proximaSegundaAs10.toLocalDate().plusDays(1));
+        when(repository.findOcupacaoAtivaAPartirDe(any())).thenReturn(List.of(new DadosOcupacaoConsulta(futura)));
+
+        assertThat(indice.verificarConsistencia()).isTrue(); //Consistente: os dias antigos saíram sem reconstrução
+
+        var ocupacao = ReflectionTestUtils.getField(indice, "ocupacao");
+        var dias = (Map<?, ?>) ReflectionTestUtils.getField(ReflectionTestUtils.getField(ocupacao, "grade"), "dias");
+        var diasPorPaciente = (Map<?, ?>) ReflectionTestUtils.getField(ocupacao, "diasPorPaciente");
+        assertThat(dias).containsOnlyKeys(futura.getData().toLocalDate());
+        assertThat((Map<?, ?>) ReflectionTestUtils.getField(ocupacao, "foraDaGrade")).isEmpty();
+        assertThat(diasPorPaciente).containsOnlyKeys(2l);
+        assertThat(indice.medicoOcupado(1l, futura.getData())).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deveria considerar ocupado o médico com consulta fora da grade da clínica (ex: 10:30)")
+    void medicoOcupadoCenario1() {
+        var foraDaGrade = proximaSegundaAs10.plusMinutes(30);
+
+        indice.registrar(consulta(1l, 2l, foraDaGrade));
+
+        assertThat(indice.medicoOcupado(1l, foraDaGrade)).isTrue();
+        assertThat(indice.medicoOcupado(1l, proximaSegundaAs10)).isFalse();
+        assertThat(indice.medicosOcupados(foraDaGrade).get(numeracao.numero(1l))).isTrue();
+    }
+
+    private void avancarRelogioPara(LocalDate dia) {
+        var instante = dia.atStartOfDay(ZoneId.systemDefault()).toInstant();
+        ReflectionTestUtils.setField(indice, "relogio", Clock.fixed(instante, ZoneId.systemDefault()));
+    }
+
+    private Consulta consulta(Long idMedico, Long idPaciente, LocalDateTime data) {
+        var medico = new Medico();
+        var paciente = new Paciente();
+        ReflectionTestUtils.setField(medico, "id", idMedico);
+        ReflectionTestUtils.setField(paciente, "id", idPaciente);
+        return new Consulta(++ultimoId, medico, paciente, data, null);
+    }
+}
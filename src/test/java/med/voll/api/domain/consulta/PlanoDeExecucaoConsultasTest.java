@@ -0,0 +1,286 @@
+package med.voll.api.domain.consulta;
+
+import med.voll.api.domain.medico.MedicoRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Garante, via EXPLAIN do MySQL, que as consultas quentes do agendamento usam os índices da migration V8
+ * e não fazem full scan na tabela consultas (e que a listagem por cursor usa o índice da V11).
+ * O EXPLAIN é feito sobre o SQL que os métodos dos repositories realmente geram, capturado no DataSource junto com os
+ * parâmetros enviados, para que uma mudança na query ou no Hibernate não deixe o teste verificando um SQL que não existe mais.
+ * A massa de 1 milhão de consultas é criada apenas na primeira execução
+ * e mantida em um banco próprio (vollmed_api_explain), para não interferir nos demais testes e tornar as execuções seguintes rápidas.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.datasource.url=jdbc:mysql://localhost:3306/vollmed_api_explain?createDatabaseIfNotExist=true&rewriteBatchedStatements=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED) //A massa precisa ser commitada para que o otimizador enxergue as estatísticas
+@TestInstance(TestInstance.Lifecycle.PER_CLASS) //Permite um @BeforeAll não estático com acesso ao JdbcTemplate
+class PlanoDeExecucaoConsultasTest {
+
+    private static final int TOTAL_MEDICOS = 1_000;
+    private static final int TOTAL_PACIENTES = 10_000;
+    private static final int TOTAL_CONSULTAS = 1_000_000;
+    private static final int TAMANHO_LOTE = 10_000;
+
+    // Comandos enviados ao banco pela thread atual enquanto capturar() executa uma chamada ao repository
+    private static final ThreadLocal<List<ComandoSql>> COMANDOS_CAPTURADOS = new ThreadLocal<>();
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ConsultaRepository consultaRepository;
+
+    @Autowired
+    private MedicoRepository medicoRepository;
+
+    private final LocalDateTime proximaSegundaAs10 = LocalDate.now()
+            .with(TemporalAdjusters.next(DayOfWeek.MONDAY))
+            .atTime(10, 0);
+
+    @BeforeAll
+    void popularBanco() {
+        var consultasExistentes = jdbc.queryForObject("select count(*) from consultas", Long.class);
+        if (consultasExistentes >= TOTAL_CONSULTAS) {
+            return;
+        }
+
+        var idsMedicos = inserirMedicos();
+        var idsPacientes = inserirPacientes();
+        inserirConsultas(idsMedicos, idsPacientes);
+        jdbc.execute("analyze table medicos, pacientes, consultas");
+    }
+
+    @Test
+    @DisplayName("Verificação de médico com outra consulta no mesmo horário não deveria fazer full scan")
+    void existsByMedicoIdAndDataAndMotivoCancelamentoIsNull() {
+        var medico = primeiroMedico();
+        assertSemFullScanEmConsultas(capturar(() ->
+                consultaRepository.existsByMedicoIdAndDataAndMotivoCancelamentoIsNull(medico, proximaSegundaAs10)));
+    }
+
+    @Test
+    @DisplayName("Verificação de paciente com outra consulta no dia não deveria fazer full scan")
+    void existsByPacienteIdAndDataBetween() {
+        var paciente = primeiroPaciente();
+        assertSemFullScanEmConsultas(capturar(() ->
+                consultaRepository.existsByPacienteIdAndDataBetween(paciente, proximaSegundaAs10.withHour(7), proximaSegundaAs10.withHour(18))));
+    }
+
+    @Test
+    @DisplayName("Verificação única do agendamento (status e conflitos de horário) não deveria fazer full scan")
+    void verificarAgendamento() {
+        var paciente = primeiroPaciente();
+        var medico = primeiroMedico();
+        assertSemFullScanEmConsultas(capturar(() -> consultaRepository.verificarAgendamento(
+                paciente, medico, proximaSegundaAs10, proximaSegundaAs10.withHour(7), proximaSegundaAs10.withHour(18))));
+    }
+
+    @Test
+    @DisplayName("Carga do índice de ocupação da agenda não deveria fazer full scan")
+    void findOcupacaoAtivaAPartirDe() {
+        assertSemFullScanEmConsultas(capturar(() -> consultaRepository.findOcupacaoAtivaAPartirDe(LocalDate.now().atStartOfDay())));
+    }
+
+    @Test
+    @DisplayName("Busca do status do médico deveria usar a chave primária")
+    void findAtivoById() {
+        var medico = primeiroMedico();
+
+        var plano = explain(capturar(() -> medicoRepository.findAtivoById(medico)));
+
+        assertThat(plano).allSatisfy(linha -> assertThat(linha.get("type")).isEqualTo("const"));
+    }
+
+    @Test
+    @DisplayName("Listagem de médicos por cursor deveria buscar pelo índice (ativo, nome, id), sem ordenar em memória")
+    void findAtivosOrdenadosPorNomeApos() {
+        var plano = explain(capturar(() -> medicoRepository.findAtivosOrdenadosPorNomeApos("Medico 500", 0l, Limit.of(11))));
+
+        assertThat(plano).allSatisfy(linha -> {
+            assertThat(linha.get("key")).isEqualTo("idx_medicos_ativo_nome_id");
+            assertThat(String.valueOf(linha.get("Extra"))).doesNotContain("Using filesort");
+        });
+    }
+
+    /**
+     * Linhas do EXPLAIN com type ALL (full table scan) ou index (full index scan) sobre consultas falham o teste.
+     * O Hibernate dá às tabelas apelidos derivados da entidade (c1_0, c2_0... para Consulta)
+     */
+    private void assertSemFullScanEmConsultas(ComandoSql comando) {
+        var plano = explain(comando);
+        var linhasConsultas = plano.stream().filter(linha -> String.valueOf(linha.get("table")).matches("c\\d+_\\d+")).toList();
+
+        assertThat(linhasConsultas).as("plano de execução de %s: %s", comando.sql(), plano).isNotEmpty();
+        assertThat(linhasConsultas).as("plano de execução de %s: %s", comando.sql(), plano).allSatisfy(linha -> {
+            assertThat(linha.get("type")).isNotIn("ALL", "index");
+            assertThat(linha.get("key")).isNotNull();
+        });
+    }
+
+    // EXPLAIN do SQL que o repository gerou, com os mesmos parâmetros que ele enviou
+    private List<Map<String, Object>> explain(ComandoSql comando) {
+        return jdbc.queryForList("explain " + comando.sql(), comando.parametros().values().toArray());
+    }
+
+    /**
+     * Executa a chamada ao repository e devolve o único comando SQL que ela enviou ao banco.
+     * Os ids usados na chamada devem ser buscados antes, fora da captura
+     */
+    private ComandoSql capturar(Runnable chamada) {
+        var comandos = new ArrayList<ComandoSql>();
+        COMANDOS_CAPTURADOS.set(comandos);
+        try {
+            chamada.run();
+        } finally {
+            COMANDOS_CAPTURADOS.remove();
+        }
+        assertThat(comandos).as("comandos SQL executados").hasSize(1);
+        return comandos.get(0);
+    }
+
+    private Long primeiroMedico() {
+        return jdbc.queryForObject("select min(id) from medicos", Long.class);
+    }
+
+    private Long primeiroPaciente() {
+        return jdbc.queryForObject("select min(id) from pacientes", Long.class);
+    }
+
+    private List<Long> inserirMedicos() {
+        var especialidades = new String[]{"ORTOPEDIA", "CARDIOLOGIA", "GINECOLOGIA", "DERMATOLOGIA"};
+        var linhas = new ArrayList<Object[]>();
+        for (int i = 0; i < TOTAL_MEDICOS; i++) {
+            linhas.add(new Object[]{"Medico " + i, "explain.medico" + i + "@voll.med", "9%05d".formatted(i), especialidades[i % especialidades.length]});
+        }
+        jdbc.batchUpdate("""
+                insert into medicos(nome, email, crm, especialidade, logradouro, bairro, cep, uf, cidade, telefone, ativo)
+                    values (?, ?, ?, ?, 'rua xpto', 'bairro', '00000000', 'DF', 'Brasilia', '61999999999', 1)
+                """, linhas);
+        return jdbc.queryForList("select id from medicos where email like 'explain.medico%' order by id", Long.class);
+    }
+
+    private List<Long> inserirPacientes() {
+        var linhas = new ArrayList<Object[]>();
+        for (int i = 0; i < TOTAL_PACIENTES; i++) {
+            linhas.add(new Object[]{"Paciente " + i, "explain.paciente" + i + "@voll.med", "999%08d".formatted(i)});
+        }
+        jdbc.batchUpdate("""
+                insert into pacientes(nome, email, cpf, logradouro, bairro, cep, uf, cidade, telefone, ativo)
+                    values (?, ?, ?, 'rua xpto', 'bairro', '00000000', 'DF', 'Brasilia', '61999999999', 1)
+                """, linhas);
+        return jdbc.queryForList("select id from pacientes where email like 'explain.paciente%' order by id", Long.class);
+    }
+
+    // Cada horário recebe uma consulta por médico, espalhando a massa de 30 dias atrás até algumas semanas à frente
+    private void inserirConsultas(List<Long> idsMedicos, List<Long> idsPacientes) {
+        var inicio = LocalDate.now().minusDays(30).atTime(0, 0);
+        var linhas = new ArrayList<Object[]>(TAMANHO_LOTE);
+        for (int i = 0; i < TOTAL_CONSULTAS; i++) {
+            var medico = idsMedicos.get(i % idsMedicos.size());
+            var paciente = idsPacientes.get(i % idsPacientes.size());
+            var data = inicio.plusHours(i / idsMedicos.size());
+            var motivo = (i % 10 == 0) ? "OUTROS" : null;
+            linhas.add(new Object[]{medico, paciente, data, motivo});
+
+            if (linhas.size() == TAMANHO_LOTE) {
+                inserirLoteConsultas(linhas);
+                linhas.clear();
+            }
+        }
+        inserirLoteConsultas(linhas);
+    }
+
+    private void inserirLoteConsultas(List<Object[]> linhas) {
+        jdbc.batchUpdate("insert into consultas(medico_id, paciente_id, data, motivo_cancelamento) values (?, ?, ?, ?)", linhas);
+    }
+
+    record ComandoSql(String sql, Map<Integer, Object> parametros) {
+    }
+
+    /**
+     * Envolve o DataSource para registrar o SQL de cada PreparedStatement e os parâmetros atribuídos a ele,
+     * apenas enquanto há uma captura ativa na thread
+     */
+    @TestConfiguration
+    static class CapturaSqlConfiguration {
+
+        @Bean
+        static BeanPostProcessor capturaSql() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String nome) {
+                    return (bean instanceof DataSource dataSource) ? proxy(DataSource.class, dataSource, CapturaSqlConfiguration::conexao) : bean;
+                }
+            };
+        }
+
+        private static Object conexao(Object resultado, Method metodo, Object[] args) {
+            return (resultado instanceof Connection conexao) ? proxy(Connection.class, conexao, CapturaSqlConfiguration::comando) : resultado;
+        }
+
+        private static Object comando(Object resultado, Method metodo, Object[] args) {
+            var comandos = COMANDOS_CAPTURADOS.get();
+            if (comandos == null || !(resultado instanceof PreparedStatement statement) || !metodo.getName().equals("prepareStatement")) {
+                return resultado;
+            }
+            var comando = new ComandoSql((String) args[0], new TreeMap<>());
+            comandos.add(comando);
+            return proxy(PreparedStatement.class, statement, (retorno, chamado, argumentos) -> {
+                if (chamado.getName().startsWith("set") && argumentos != null && argumentos.length >= 2 && argumentos[0] instanceof Integer posicao) {
+                    comando.parametros().put(posicao, chamado.getName().equals("setNull") ? null : argumentos[1]);
+                }
+                return retorno;
+            });
+        }
+
+        // Delega todas as chamadas ao objeto original e deixa o resultado ser trocado (ex: a Connection por outro proxy)
+        private static <T> T proxy(Class<T> tipo, T original, AposChamada aposChamada) {
+            return tipo.cast(Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, (proxy, metodo, args) -> {
+                try {
+                    return aposChamada.aplicar(metodo.invoke(original, args), metodo, args);
+                } catch (InvocationTargetException ex) {
+                    throw ex.getCause();
+                }
+            }));
+        }
+
+        private interface AposChamada {
+            Object aplicar(Object resultado, Method metodo, Object[] args);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package med.voll.api.domain.consulta.validacoes.agendamento;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import med.voll.api.domain.ValidacaoException;
+import med.voll.api.domain.consulta.DadosAgendamentoConsulta;
+import med.voll.api.domain.consulta.DadosVerificacaoAgendamento;
+import med.voll.api.infra.metricas.MetricasValidacao;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PipelineValidacaoAgendamentoTest {
+
+    private final DadosAgendamentoConsulta dados = new DadosAgendamentoConsulta(1l, 2l, LocalDateTime.now().plusDays(1), null);
+
+    private final DadosVerificacaoAgendamento verificacao = new DadosVerificacaoAgendamento(true, true, false, false);
+
+    @Test
+    @DisplayName("Deveria parar no primeiro erro sem executar os validadores seguintes")
+    void validarCenario1() {
+        var chamadasSeguintes = new AtomicInteger();
+        var pipeline = pipeline(
+                validador(d -> { throw new ValidacaoException("Fora do horário"); }),
+                validador(d -> chamadasSeguintes.incrementAndGet()),
+                validador(d -> chamadasSeguintes.incrementAndGet()));
+
+        assertThatThrownBy(() -> pipeline.validar(dados, verificacao)).hasMessage("Fora do horário");
+        assertThat(chamadasSeguintes).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("Deveria executar todos os validadores na thread de quem chamou")
+    void validarCenario2() {
+        var threads = new ArrayList<Thread>();
+        var pipeline = pipeline(validador(d -> threads.add(Thread.currentThread())), validador(d -> threads.add(Thread.currentThread())));
+
+        pipeline.validar(dados, verificacao);
+
+        assertThat(threads).containsExactly(Thread.currentThread(), Thread.currentThread());
+    }
+
+    private PipelineValidacaoAgendamento pipeline(ValidadorAgendamentoDeConsulta... validadores) {
+        return new PipelineValidacaoAgendamento(List.of(validadores), new MetricasValidacao(new SimpleMeterRegistry()));
+    }
+
+    private ValidadorAgendamentoDeConsulta validador(Consumer<DadosAgendamentoConsulta> validacao) {
+        return validacao::accept;
+    }
+}
@@ -0,0 +1,206 @@
+package med.voll.api.domain.medico;
+
+import med.voll.api.domain.consulta.Consulta;
+import med.voll.api.domain.consulta.IndiceOcupacaoAgenda;
+import med.voll.api.domain.endereco.DadosEndereco;
+import med.voll.api.domain.paciente.Paciente;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DisponibilidadeMedicosTest {
+
+    @Mock
+    private MedicoRepository repository;
+
+    @Mock
+    private IndiceOcupacaoAgenda indiceOcupacao;
+
+    @Spy
+    private NumeracaoMedicos numeracao = new NumeracaoMedicos();
+
+    @InjectMocks
+    private DisponibilidadeMedicos disponibilidade;
+
+    private long ultimoIdConsulta = 100;
+
+    private final LocalDateTime proximaSegundaAs10 = LocalDate.now()
+            .with(TemporalAdjusters.next(DayOfWeek.MONDAY))
+            .atTime(10, 0);
+
+    @Test
+    @DisplayName("Deveria devolver null quando único médico cadastrado não estiver disponível na data")
+    void escolherMedicoAleatorioLivreCenario1() {
+        when(repository.findEspecialidadeDosAtivos()).thenReturn(List.of(new DadosEspecialidadeMedico(1l, Especialidade.CARDIOLOGIA)));
+        ocupar(proximaSegundaAs10, 1l);
+        disponibilidade.carregar();
+
+        var medicoLivre = disponibilidade.escolherMedicoAleatorioLivre(Especialidade.CARDIOLOGIA, proximaSegundaAs10);
+
+        assertThat(medicoLivre).isNull();
+    }
+
+    @Test
+    @DisplayName("Deveria devolver médico quando ele estiver disponível na data")
+    void escolherMedicoAleatorioLivreCenario2() {
+        when(repository.findEspecialidadeDosAtivos()).thenReturn(List.of(
+                new DadosEspecialidadeMedico(1l, Especialidade.CARDIOLOGIA),
+                new DadosEspecialidadeMedico(2l, Especialidade.ORTOPEDIA)));
+        ocupar(proximaSegundaAs10);
+        disponibilidade.carregar();
+
+        var medicoLivre = disponibilidade.escolherMedicoAleatorioLivre(Especialidade.CARDIOLOGIA, proximaSegundaAs10);
+
+        assertThat(medicoLivre).isEqualTo(1l);
+    }
+
+    @Test
+    @DisplayName("Deveria sortear entre todos os médicos livres, nunca devolvendo um ocupado")
+    void escolherMedicoAleatorioLivreCenario3() {
+        when(repository.findEspecialidadeDosAtivos()).thenReturn(List.of(
+                new DadosEspecialidadeMedico(1l, Especialidade.CARDIOLOGIA),
+                new DadosEspecialidadeMedico(2l, Especialidade.CARDIOLOGIA),
+                new DadosEspecialidadeMedico(3l, Especialidade.CARDIOLOGIA),
+                new DadosEspecialidadeMedico(4l, Especialidade.CARDIOLOGIA)));
+        ocupar(proximaSegundaAs10, 4l);
+        disponibilidade.carregar();
+
+        var sorteios = new HashMap<Long, Integer>();
+        for (int i = 0; i < 3000; i++) {
+            sorteios.merge(disponibilidade.escolherMedicoAleatorioLivre(Especialidade.CARDIOLOGIA, proximaSegundaAs10), 1, Integer::sum);
+        }
+
+        assertThat(sorteios).containsOnlyKeys(1l, 2l, 3l);
+        assertThat(sorteios.values()).allSatisfy(total -> assertThat(total).isBetween(800, 1200));
+    }
+
+    @Test
+    @DisplayName("Deveria manter o médico cadastrado enquanto a disponibilidade era recarregada do banco")
+    void carregarCenario1() {
+        var medico = new Medico(new DadosCadastroMedico("Medico", "medico@voll.med", "61999999999", "123456",
+                Especialidade.CARDIOLOGIA, new DadosEndereco("rua xpto", "bairro", "00000000", "Brasilia", "DF", null, null)));
+        ReflectionTestUtils.setField(medico, "id", 5l);
+        when(repository.findEspecialidadeDosAtivos()).thenAnswer(invocacao -> {
+            disponibilidade.atualizar(medico); //Commit após a leitura da tabela, que não o enxergou
+            return List.of(new DadosEspecialidadeMedico(1l, Especialidade.ORTOPEDIA));
+        });
+        ocupar(proximaSegundaAs10);
+
+        disponibilidade.carregar();
+
+        assertThat(disponibilidade.escolherMedicoAleatorioLivre(Especialidade.CARDIOLOGIA, proximaSegundaAs10)).isEqualTo(5l);
+    }
+
+    @Test
+    @DisplayName("Deveria encontrar o único médico livre quando quase todos os médicos da especialidade estiverem ocupados")
+    void escolherMedicoAleatorioLivreCenario4() {
+        when(repository.findEspecialidadeDosAtivos()).thenReturn(LongStream.rangeClosed(1, 200)
+                .mapToObj(id -> new DadosEspecialidadeMedico(id, Especialidade.CARDIOLOGIA))
+                .toList());
+        ocupar(proximaSegundaAs10, LongStream.rangeClosed(1, 200).filter(id -> id != 137).boxed().toArray(Long[]::new));
+        disponibilidade.carregar();
+
+        for (int i = 0; i < 50; i++) {
+            assertThat(disponibilidade.escolherMedicoAleatorioLivre(Especialidade.CARDIOLOGIA, proximaSegundaAs10)).isEqualTo(137l);
+        }
+        assertThat(disponibilidade.totalLivres(Especialidade.CARDIOLOGIA, proximaSegundaAs10)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deveria sortear entre médicos espalhados por várias palavras de 64 bits, desconsiderando os ignorados")
+    void escolherMedicoAleatorioLivreCenario5() {
+        when(repository.findEspecialidadeDosAtivos()).thenReturn(LongStream.rangeClosed(1, 200)
+                .mapToObj(id -> new DadosEspecialidadeMedico(id, (id % 50 == 0) ? Especialidade.CARDIOLOGIA : Especialidade.ORTOPEDIA))
+                .toList());
+        ocupar(proximaSegundaAs10);
+        disponibilidade.carregar();
+
+        var sorteados = new HashSet<Long>();
+        for (int i = 0; i < 500; i++) {
+            sorteados.add(disponibilidade.escolherMedicoAleatorioLivre(Especialidade.CARDIOLOGIA, proximaSegundaAs10, Set.of(100l)));
+        }
+
+        assertThat(sorteados).containsExactlyInAnyOrder(50l, 150l, 200l);
+    }
+
+    @Test
+    @DisplayName("Deveria devolver null quando não houver médico ativo da especialidade")
+    void escolherMedicoAleatorioLivreComIndiceCenario1() {
+        when(repository.findEspecialidadeDosAtivos()).thenReturn(List.of(new DadosEspecialidadeMedico(1l, Especialidade.ORTOPEDIA)));
+        usarIndiceReal();
+        disponibilidade.carregar();
+
+        assertThat(disponibilidade.escolherMedicoAleatorioLivre(Especialidade.CARDIOLOGIA, proximaSegundaAs10)).isNull();
+    }
+
+    @Test
+    @DisplayName("Deveria devolver null quando o único médico da especialidade tiver consulta ativa no horário")
+    void escolherMedicoAleatorioLivreComIndiceCenario2() {
+        when(repository.findEspecialidadeDosAtivos()).thenReturn(List.of(new DadosEspecialidadeMedico(1l, Especialidade.CARDIOLOGIA)));
+        usarIndiceReal().registrar(consulta(1l, proximaSegundaAs10));
+        disponibilidade.carregar();
+
+        assertThat(disponibilidade.escolherMedicoAleatorioLivre(Especialidade.CARDIOLOGIA, proximaSegundaAs10)).isNull();
+    }
+
+    @Test
+    @DisplayName("Deveria devolver o médico quando a consulta dele for em outro dia ou estiver cancelada")
+    void escolherMedicoAleatorioLivreComIndiceCenario3() {
+        when(repository.findEspecialidadeDosAtivos()).thenReturn(List.of(new DadosEspecialidadeMedico(1l, Especialidade.CARDIOLOGIA)));
+        var indice = usarIndiceReal();
+        indice.registrar(consulta(1l, proximaSegundaAs10.plusDays(1)));
+        var cancelada = consulta(1l, proximaSegundaAs10);
+        indice.registrar(cancelada);
+        indice.liberar(cancelada);
+        disponibilidade.carregar();
+
+        assertThat(disponibilidade.escolherMedicoAleatorioLivre(Especialidade.CARDIOLOGIA, proximaSegundaAs10)).isEqualTo(1l);
+    }
+
+    // O sorteio testa médico a médico e, quando esgota as tentativas, usa os ocupados do horário como bits
+    private void ocupar(LocalDateTime data, Long... ids) {
+        var ocupados = new BitSet();
+        for (Long id : ids) {
+            ocupados.set(numeracao.numero(id));
+            lenient().when(indiceOcupacao.medicoOcupado(id, data)).thenReturn(true);
+        }
+        lenient().when(indiceOcupacao.medicosOcupados(data)).thenAnswer(invocacao -> ocupados.clone());
+    }
+
+    // Índice de ocupação de verdade, alimentado pelas consultas registradas no teste (sem transação, aplicadas na hora)
+    private IndiceOcupacaoAgenda usarIndiceReal() {
+        var indice = new IndiceOcupacaoAgenda();
+        ReflectionTestUtils.setField(indice, "numeracao", numeracao);
+        ReflectionTestUtils.setField(disponibilidade, "indiceOcupacao", indice);
+        return indice;
+    }
+
+    private Consulta consulta(Long idMedico, LocalDateTime data) {
+        var medico = new Medico();
+        var paciente = new Paciente();
+        ReflectionTestUtils.setField(medico, "id", idMedico);
+        ReflectionTestUtils.setField(paciente, "id", 2l);
+        return new Consulta(++ultimoIdConsulta, medico, paciente, data, null);
+    }
+}
@@ -0,0 +1,124 @@
+package med.voll.api.domain.medico;
+
+import med.voll.api.domain.endereco.DadosEndereco;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Garante que, com ids alocados por sequence, N inserts de médicos são enviados em ceil(N / batch_size) comandos JDBC
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(InsercaoEmLoteTest.ContadorDeInserts.class)
+class InsercaoEmLoteTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private ContadorDeInserts contador;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}")
+    private int tamanhoLote;
+
+    @BeforeEach
+    void zerarContador() {
+        contador.execucoes.set(0);
+    }
+
+    @Test
+    @DisplayName("Deveria enviar os inserts de médicos em lotes do tamanho configurado")
+    void inserirEmLote() {
+        var total = 120;
+        for (int i = 0; i < total; i++) {
+            em.persist(new Medico(new DadosCadastroMedico(
+                    "Medico " + i,
+                    "lote.medico" + i + "@voll.med",
+                    "61999999999",
+                    "8%05d".formatted(i),
+                    Especialidade.CARDIOLOGIA,
+                    new DadosEndereco("rua xpto", "bairro", "00000000", "DF", "Brasilia", null, null)
+            )));
+        }
+        em.flush();
+
+        var comandosEsperados = (int) Math.ceil((double) total / tamanhoLote);
+        assertThat(contador.execucoes.get()).isEqualTo(comandosEsperados);
+    }
+
+    /**
+     * Envolve o DataSource em proxies que contam quantas vezes um insert em medicos é efetivamente executado no banco
+     */
+    @TestConfiguration(proxyBeanMethods = false)
+    static class ContadorDeInserts implements BeanPostProcessor {
+
+        private static final Set<String> METODOS_EXECUCAO = Set.of("execute", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+        private final AtomicInteger execucoes = new AtomicInteger();
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource)) {
+                return bean;
+            }
+            return proxy(DataSource.class, dataSource, (alvo, metodo, args) -> {
+                var resultado = metodo.invoke(alvo, args);
+                return resultado instanceof Connection conexao ? proxyConexao(conexao) : resultado;
+            });
+        }
+
+        private Connection proxyConexao(Connection conexao) {
+            return proxy(Connection.class, conexao, (alvo, metodo, args) -> {
+                var resultado = metodo.invoke(alvo, args);
+                if (resultado instanceof PreparedStatement statement && args != null && args[0] instanceof String sql
+                        && sql.toLowerCase().startsWith("insert into medicos")) {
+                    return proxy(PreparedStatement.class, statement, (s, m, a) -> {
+                        if (METODOS_EXECUCAO.contains(m.getName())) {
+                            execucoes.incrementAndGet();
+                        }
+                        return m.invoke(s, a);
+                    });
+                }
+                return resultado;
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> tipo, T alvo, Invocacao<T> invocacao) {
+            return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, (p, metodo, args) -> {
+                try {
+                    return invocacao.invocar(alvo, metodo, args);
+                } catch (InvocationTargetException ex) {
+                    throw ex.getCause();
+                }
+            });
+        }
+
+        @FunctionalInterface
+        private interface Invocacao<T> {
+            Object invocar(T alvo, Method metodo, Object[] args) throws Throwable;
+        }
+    }
+}
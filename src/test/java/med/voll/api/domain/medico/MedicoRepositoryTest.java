@@ -1,23 +1,17 @@
 package med.voll.api.domain.medico;
 
-import med.voll.api.domain.consulta.Consulta;
 import med.voll.api.domain.endereco.DadosEndereco;
-import med.voll.api.domain.paciente.DadosCadastroPaciente;
-import med.voll.api.domain.paciente.Paciente;
 import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
 
-import java.time.DayOfWeek;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.temporal.TemporalAdjusters;
-
 @DataJpaTest //É utilizada para testar uma interface Repository
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE) //Determinando que o meu bd será o mesmo utilizado e não um banco in-memory
 @ActiveProfiles("test") //Pra ler o application-test.properties
@@ -30,49 +24,36 @@ class MedicoRepositoryTest {
     private TestEntityManager em;
 
     @Test
-    @DisplayName("Deveria devolver null quando único médico cadastrado não estiver disponível na data")
-    void escolherMedicoAleatorioLivreNaDataCenario1() {
-//        var proximaSegundaAs10 = LocalDateTime.now() // Usando LocalDateTime
-//                .with(TemporalAdjusters.next(DayOfWeek.MONDAY)) //Pegando a próxima segunda-feira
-//                .withHour(10)
-//                .withMinute(0)
-//                .withSecond(0)
-//                .withNano(0);
-
-        // given ou arrange
-        var proximaSegundaAs10 = LocalDate.now() //Usando LocalDate e adicionando horário
-                .with(TemporalAdjusters.next(DayOfWeek.MONDAY)) //Pegando a próxima segunda-feira
-                .atTime(10, 0);
-
-        var medico = cadastrarMedico("Medico", "medico@voll.med", "123456", Especialidade.CARDIOLOGIA);
-        var paciente = cadastrarPaciente("Paciente", "paciente@voll.med", "00000000000");
-        cadastrarConsulta(medico, paciente, proximaSegundaAs10);
-
-        // when ou act
-        var medicoLivre = medicoRepository.escolherMedicoAleatorioLivreNaData(Especialidade.CARDIOLOGIA, proximaSegundaAs10);
-
-        // then ou assert
-        Assertions.assertThat(medicoLivre).isNull();
+    @DisplayName("Deveria percorrer os médicos ativos por cursor em ordem de nome e id, sem repetir nem pular registros")
+    void findAtivosOrdenadosPorNomeApos() {
+        var ana1 = cadastrarMedico("Ana", "ana1@voll.med", "123451", Especialidade.CARDIOLOGIA);
+        var ana2 = cadastrarMedico("Ana", "ana2@voll.med", "123452", Especialidade.CARDIOLOGIA);
+        var bruno = cadastrarMedico("Bruno", "bruno@voll.med", "123453", Especialidade.ORTOPEDIA);
+        var carla = cadastrarMedico("Carla", "carla@voll.med", "123454", Especialidade.ORTOPEDIA);
+        cadastrarMedico("Daniel", "daniel@voll.med", "123455", Especialidade.ORTOPEDIA).excluir();
+
+        var primeiraPagina = medicoRepository.findAtivosOrdenadosPorNome(Limit.of(2));
+        var ultimo = primeiraPagina.get(1);
+        var segundaPagina = medicoRepository.findAtivosOrdenadosPorNomeApos(ultimo.nome(), ultimo.id(), Limit.of(2));
+
+        Assertions.assertThat(primeiraPagina).extracting(DadosListagemMedico::id).containsExactly(ana1.getId(), ana2.getId());
+        Assertions.assertThat(segundaPagina).extracting(DadosListagemMedico::id).containsExactly(bruno.getId(), carla.getId());
     }
 
     @Test
-    @DisplayName("Deveria devolver médico quando ele estiver disponível na data")
-    void escolherMedicoAleatorioLivreNaDataCenario2() {
-        // given ou arrange
-        var proximaSegundaAs10 = LocalDate.now()
-                .with(TemporalAdjusters.next(DayOfWeek.MONDAY)) //Pegando a próxima segunda-feira
-                .atTime(10, 0);
+    @DisplayName("Deveria devolver o detalhamento do médico, com endereço, sem carregar a entidade")
+    void findDetalhamentoById() {
         var medico = cadastrarMedico("Medico", "medico@voll.med", "123456", Especialidade.CARDIOLOGIA);
+        em.flush();
+        em.clear();
 
-        // when ou act
-        var medicoLivre = medicoRepository.escolherMedicoAleatorioLivreNaData(Especialidade.CARDIOLOGIA, proximaSegundaAs10);
-
-        // then ou assert
-        Assertions.assertThat(medicoLivre).isEqualTo(medico);
-    }
+        var detalhamento = medicoRepository.findDetalhamentoById(medico.getId());
 
-    private void cadastrarConsulta(Medico medico, Paciente paciente, LocalDateTime data) {
-        em.persist(new Consulta(null, medico, paciente, data, null));
+        Assertions.assertThat(detalhamento).hasValueSatisfying(dados -> {
+            Assertions.assertThat(dados.crm()).isEqualTo("123456");
+            Assertions.assertThat(dados.endereco().getCidade()).isEqualTo("Brasilia");
+        });
+        Assertions.assertThat(em.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount()).isZero();
     }
 
     private Medico cadastrarMedico(String nome, String email, String crm, Especialidade especialidade) {
@@ -92,22 +73,6 @@ class MedicoRepositoryTest {
         );
     }
 
-    private Paciente cadastrarPaciente(String nome, String email, String cpf) {
-        var paciente = new Paciente(dadosPaciente(nome, email, cpf));
-        em.persist(paciente);
-        return paciente;
-    }
-
-    private DadosCadastroPaciente dadosPaciente(String nome, String email, String cpf) {
-        return new DadosCadastroPaciente(
-                nome,
-                email,
-                "61999999999",
-                cpf,
-                dadosEndereco()
-        );
-    }
-
     private DadosEndereco dadosEndereco() {
         return new DadosEndereco(
                 "rua xpto",
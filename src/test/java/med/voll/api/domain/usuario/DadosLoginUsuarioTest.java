@@ -0,0 +1,32 @@
+package med.voll.api.domain.usuario;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DadosLoginUsuarioTest {
+
+    private static final String HASH = "$2a$10$hash";
+
+    @Test
+    @DisplayName("Não deveria expor o hash da senha no toString")
+    void toStringCenario1() {
+        var usuario = new DadosLoginUsuario(10l, "ana.souza@voll.med", HASH);
+
+        assertThat(usuario.toString()).contains("ana.souza@voll.med").doesNotContain(HASH);
+    }
+
+    @Test
+    @DisplayName("Deveria apagar o hash da senha após a autenticação, mantendo id e login para o token")
+    void eraseCredentialsCenario1() {
+        var usuario = new DadosLoginUsuario(10l, "ana.souza@voll.med", HASH);
+
+        usuario.eraseCredentials();
+
+        assertThat(usuario.senha()).isNull();
+        assertThat(usuario.getPassword()).isNull();
+        assertThat(usuario.id()).isEqualTo(10l);
+        assertThat(usuario.login()).isEqualTo("ana.souza@voll.med");
+    }
+}
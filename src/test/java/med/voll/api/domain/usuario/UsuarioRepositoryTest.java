@@ -0,0 +1,44 @@
+package med.voll.api.domain.usuario;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class UsuarioRepositoryTest {
+
+    @Autowired
+    private UsuarioRepository repository;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Test
+    @DisplayName("Deveria devolver somente id, login e senha do usuário, sem colocar a entidade no contexto de persistência")
+    void findDadosLoginByLoginCenario1() {
+        var usuario = em.persistFlushFind(new Usuario(null, "login.projecao@voll.med", "$2a$10$hash"));
+        em.clear();
+
+        var dados = repository.findDadosLoginByLogin("login.projecao@voll.med");
+
+        assertThat(dados).contains(new DadosLoginUsuario(usuario.getId(), "login.projecao@voll.med", "$2a$10$hash"));
+        assertThat(dados.get().senha()).isEqualTo("$2a$10$hash");
+        assertThat(dados.get().getAuthorities()).extracting("authority").containsExactly("ROLE_USER");
+        assertThat(em.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deveria devolver vazio quando o login não estiver cadastrado")
+    void findDadosLoginByLoginCenario2() {
+        assertThat(repository.findDadosLoginByLogin("inexistente@voll.med")).isEmpty();
+    }
+}
@@ -0,0 +1,84 @@
+package med.voll.api.infra.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import med.voll.api.domain.endereco.DadosEndereco;
+import med.voll.api.domain.medico.DadosCadastroMedico;
+import med.voll.api.domain.medico.Especialidade;
+import med.voll.api.domain.medico.Medico;
+import med.voll.api.domain.medico.MedicoRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sem @Transactional nos testes: o cache de segundo nível só é populado e invalidado quando as transações são commitadas
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CacheSegundoNivelTest {
+
+    @Autowired
+    private MedicoRepository repository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transacao;
+
+    private Statistics estatisticas;
+
+    private Long idMedico;
+
+    @BeforeEach
+    void cadastrarMedico() {
+        transacao = new TransactionTemplate(transactionManager);
+        estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        idMedico = transacao.execute(status -> repository.save(new Medico(new DadosCadastroMedico(
+                "Medico Cache", "cache.medico@voll.med", "61999999999", "777777", Especialidade.CARDIOLOGIA,
+                new DadosEndereco("rua xpto", "bairro", "00000000", "DF", "Brasilia", null, null)))).getId());
+        estatisticas.clear();
+    }
+
+    @AfterEach
+    void excluirMedico() {
+        transacao.executeWithoutResult(status -> repository.deleteById(idMedico));
+    }
+
+    @Test
+    @DisplayName("Deveria responder findById pelo cache a partir da segunda leitura")
+    void leituraCenario1() {
+        transacao.executeWithoutResult(status -> repository.findById(idMedico));
+        transacao.executeWithoutResult(status -> repository.findById(idMedico));
+
+        assertThat(estatisticas.getDomainDataRegionStatistics(CacheConfigurations.REGIAO_MEDICOS).getHitCount()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Deveria atualizar o médico em cache quando ele for excluído")
+    void leituraCenario2() {
+        assertThat(transacao.execute(status -> repository.findById(idMedico).get().getAtivo())).isTrue();
+
+        transacao.executeWithoutResult(status -> repository.getReferenceById(idMedico).excluir());
+
+        assertThat(transacao.execute(status -> repository.findById(idMedico).get().getAtivo())).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deveria manter só as regiões das entidades, sem cache de queries")
+    void regioesCenario1() {
+        assertThat(estatisticas.getSecondLevelCacheRegionNames()).containsExactlyInAnyOrderElementsOf(CacheConfigurations.REGIOES_ENTIDADES);
+    }
+}
@@ -0,0 +1,132 @@
+package med.voll.api.infra.concorrencia;
+
+import med.voll.api.domain.usuario.DadosLoginUsuario;
+import med.voll.api.infra.security.TokenService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Carga de 1 mil a 10 mil clientes simultâneos contra GET /medicos, cada um fazendo várias requisições em sequência.
+ * Imprime o modo (threads virtuais ou de plataforma), o p50, o p99 e a vazão, para comparar os dois modos:
+ * mvn test -Pdesempenho -Dtest=CargaConcorrenteTest
+ * mvn test -Pdesempenho,java21 -Dtest=CargaConcorrenteTest -Dspring.profiles.include=virtual-threads
+ * O cliente é assíncrono (HttpClient.sendAsync), então os clientes simultâneos não custam uma thread cada no teste.
+ * Sob sobrecarga a API só pode responder 200 ou 503 (contrapressão do LimiteRequisicoesFilter), nunca 500 por falta de conexão.
+ */
+@Tag("desempenho")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CargaConcorrenteTest {
+
+    private static final int REQUISICOES_POR_CLIENTE = 10;
+    private static final Duration TEMPO_MAXIMO = Duration.ofMinutes(5);
+
+    @LocalServerPort
+    private int porta;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean threadsVirtuais;
+
+    @Autowired
+    private TokenService tokenService;
+
+    private HttpClient http;
+
+    private HttpRequest requisicao;
+
+    @BeforeAll
+    void configurar() {
+        http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        var token = tokenService.gerarToken(new DadosLoginUsuario(1l, "carga@voll.med", null));
+        requisicao = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + "/medicos?size=10"))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+    }
+
+    @ParameterizedTest(name = "{0} clientes")
+    @ValueSource(ints = {1_000, 2_500, 5_000, 10_000})
+    @DisplayName("Deveria responder apenas 200 ou 503 sob milhares de clientes simultâneos, medindo p99 e vazão")
+    void carga(int clientes) throws Exception {
+        var latencias = new ConcurrentLinkedQueue<Long>();
+        var respostasPorStatus = new ConcurrentHashMap<Integer, AtomicInteger>();
+        var erros = new ConcurrentLinkedQueue<Throwable>();
+
+        var inicio = System.nanoTime();
+        var execucoes = IntStream.range(0, clientes)
+                .mapToObj(i -> cliente(REQUISICOES_POR_CLIENTE, latencias, respostasPorStatus, erros))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(execucoes).get(TEMPO_MAXIMO.toSeconds(), TimeUnit.SECONDS);
+        var duracao = Duration.ofNanos(System.nanoTime() - inicio);
+
+        var ordenadas = new ArrayList<>(latencias);
+        ordenadas.sort(null);
+        var total = clientes * REQUISICOES_POR_CLIENTE;
+        System.out.printf("Carga (%s): %,d clientes, %,d requisições em %d ms | p50 %d ms | p99 %d ms | %,d req/s | status %s%n",
+                threadsVirtuais ? "threads virtuais" : "threads de plataforma", clientes, total, duracao.toMillis(),
+                percentil(ordenadas, 50), percentil(ordenadas, 99), total * 1000L / Math.max(1, duracao.toMillis()),
+                respostasPorStatus);
+
+        assertThat(erros).as("falhas de conexão do cliente").isEmpty();
+        assertThat(respostasPorStatus.keySet()).isSubsetOf(200, 503);
+        assertThat(respostasPorStatus.get(200)).as("requisições atendidas").isNotNull();
+    }
+
+    // Um cliente faz as requisições uma após a outra, encadeando a próxima na resposta da anterior
+    private CompletableFuture<Void> cliente(int restantes, ConcurrentLinkedQueue<Long> latencias,
+                                            Map<Integer, AtomicInteger> respostasPorStatus, ConcurrentLinkedQueue<Throwable> erros) {
+        if (restantes == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        var inicio = System.nanoTime();
+        return http.sendAsync(requisicao, HttpResponse.BodyHandlers.discarding())
+                .handle((resposta, erro) -> {
+                    if (erro != null) {
+                        erros.add(erro);
+                    } else {
+                        latencias.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+                        respostasPorStatus.computeIfAbsent(resposta.statusCode(), status -> new AtomicInteger()).incrementAndGet();
+                    }
+                    return null;
+                })
+                .thenCompose(ignorado -> cliente(restantes - 1, latencias, respostasPorStatus, erros));
+    }
+
+    private long percentil(ArrayList<Long> ordenadas, int percentil) {
+        if (ordenadas.isEmpty()) {
+            return 0;
+        }
+        var posicao = (int) Math.ceil(percentil / 100.0 * ordenadas.size()) - 1;
+        return ordenadas.get(Math.max(0, posicao));
+    }
+}
@@ -0,0 +1,111 @@
+package med.voll.api.infra.concorrencia;
+
+import med.voll.api.infra.metricas.OrcamentoConsultasSql;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LimiteRequisicoesFilterTest {
+
+    @Test
+    @DisplayName("Deveria devolver 503 quando todas as vagas estiverem ocupadas além da espera máxima")
+    void doFilterCenario1() throws Exception {
+        var filtro = new LimiteRequisicoesFilter(1, Duration.ofMillis(50), request -> null);
+        var emAndamento = new CountDownLatch(1);
+        var liberar = new CountDownLatch(1);
+        var executor = Executors.newSingleThreadExecutor();
+        executor.submit(() -> {
+            filtro.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), (req, resp) -> {
+                emAndamento.countDown();
+                try {
+                    liberar.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            return null;
+        });
+        assertThat(emAndamento.await(5, TimeUnit.SECONDS)).isTrue();
+
+        var response = new MockHttpServletResponse();
+        filtro.doFilter(new MockHttpServletRequest(), response, (req, resp) -> {
+            throw new AssertionError("Requisição excedente não deveria ser processada");
+        });
+
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("1");
+
+        liberar.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(filtro.vagasDisponiveis()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deveria liberar a vaga mesmo quando a requisição falhar")
+    void doFilterCenario2() throws Exception {
+        var filtro = new LimiteRequisicoesFilter(1, Duration.ofMillis(50), request -> null);
+
+        assertThatThrownBy(() -> filtro.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), (req, resp) -> {
+            throw new IllegalStateException("erro");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(filtro.vagasDisponiveis()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deveria deixar passar, sem ocupar vaga, o endpoint que não usa o banco (@OrcamentoConsultasSql(0))")
+    void doFilterCenario3() throws Exception {
+        var filtro = new LimiteRequisicoesFilter(0, Duration.ofMillis(50), endpoint("semBanco"));
+        var processada = new AtomicBoolean();
+
+        var response = new MockHttpServletResponse();
+        filtro.doFilter(new MockHttpServletRequest("GET", "/consultas/disponibilidade"), response, (req, resp) -> processada.set(true));
+
+        assertThat(processada).isTrue();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(filtro.vagasDisponiveis()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deveria aplicar o limite ao endpoint que usa o banco")
+    void doFilterCenario4() throws Exception {
+        var filtro = new LimiteRequisicoesFilter(0, Duration.ofMillis(50), endpoint("comBanco"));
+
+        var response = new MockHttpServletResponse();
+        filtro.doFilter(new MockHttpServletRequest("GET", "/medicos"), response, (req, resp) -> {
+            throw new AssertionError("Requisição sem vaga não deveria ser processada");
+        });
+
+        assertThat(response.getStatus()).isEqualTo(503);
+    }
+
+    private HandlerMapping endpoint(String metodo) throws NoSuchMethodException {
+        var handler = new HandlerMethod(new Endpoints(), Endpoints.class.getDeclaredMethod(metodo));
+        return request -> new HandlerExecutionChain(handler);
+    }
+
+    static class Endpoints {
+
+        @OrcamentoConsultasSql(0)
+        void semBanco() {
+        }
+
+        @OrcamentoConsultasSql(2)
+        void comBanco() {
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package med.voll.api.infra.datasource;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Usa um segundo schema do MySQL local como réplica, bastando identificar por database() para onde cada transação foi enviada
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "api.datasource.replicas=jdbc:mysql://localhost:3306/vollmed_api_replica_test?createDatabaseIfNotExist=true")
+class DataSourceRoteadaTest {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    @DisplayName("Deveria enviar transações somente leitura para a réplica")
+    void determineCurrentLookupKeyCenario1() {
+        var transacao = new TransactionTemplate(transactionManager);
+        transacao.setReadOnly(true);
+
+        var banco = transacao.execute(status -> jdbc.queryForObject("select database()", String.class));
+
+        assertThat(banco).isEqualTo("vollmed_api_replica_test");
+    }
+
+    @Test
+    @DisplayName("Deveria enviar transações de escrita para a primária")
+    void determineCurrentLookupKeyCenario2() {
+        var transacao = new TransactionTemplate(transactionManager);
+
+        var banco = transacao.execute(status -> jdbc.queryForObject("select database()", String.class));
+
+        assertThat(banco).isEqualTo("vollmed_api_test");
+    }
+}
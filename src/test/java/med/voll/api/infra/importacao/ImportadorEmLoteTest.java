@@ -0,0 +1,139 @@
+package med.voll.api.infra.importacao;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import med.voll.api.domain.medico.DadosCadastroMedico;
+import med.voll.api.domain.medico.ImportacaoMedicos;
+import med.voll.api.domain.medico.Medico;
+import med.voll.api.domain.medico.MedicoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ImportadorEmLoteTest {
+
+    @Mock
+    private MedicoRepository repository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ImportadorEmLote importador;
+
+    private ImportacaoMedicos importacaoMedicos;
+
+    @BeforeEach
+    void montar() {
+        importador = new ImportadorEmLote(transactionManager);
+        ReflectionTestUtils.setField(importador, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(importador, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(importador, "tamanhoLote", 2);
+        ReflectionTestUtils.setField(importador, "maxRejeicoesDetalhadas", 100);
+
+        importacaoMedicos = new ImportacaoMedicos();
+        ReflectionTestUtils.setField(importacaoMedicos, "repository", repository);
+    }
+
+    @Test
+    @DisplayName("Deveria importar as linhas válidas do CSV e rejeitar inválidas e duplicadas sem interromper a importação")
+    void importarCenario1() throws Exception {
+        when(repository.findEmailsExistentes(anyCollection())).thenReturn(List.of("existente@voll.med"));
+        when(repository.findCrmsExistentes(anyCollection())).thenReturn(List.of());
+
+        var csv = """
+                nome,email,telefone,crm,especialidade,logradouro,bairro,cep,uf,cidade,complemento,numero
+                Medico 1,medico1@voll.med,61999999999,123456,CARDIOLOGIA,"rua xpto, 1",bairro,00000000,DF,Brasilia,,
+                Medico 2,existente@voll.med,61999999999,123457,CARDIOLOGIA,rua xpto,bairro,00000000,DF,Brasilia,,
+                Medico 3,medico3@voll.med,61999999999,abc,CARDIOLOGIA,rua xpto,bairro,00000000,DF,Brasilia,,
+                Medico 4,medico4@voll.med,61999999999,123458,PEDIATRIA,rua xpto,bairro,00000000,DF,Brasilia,,
+                Medico 5,medico5@voll.med,61999999999,123459,ORTOPEDIA,rua xpto,bairro,00000000,DF,Brasilia,,
+                """;
+
+        var resultado = importador.importar(entrada(csv), FormatoImportacao.CSV, importacaoMedicos);
+
+        assertThat(resultado.processadas()).isEqualTo(5);
+        assertThat(resultado.importadas()).isEqualTo(2);
+        assertThat(resultado.rejeitadas()).isEqualTo(3);
+        assertThat(resultado.rejeicoes()).extracting(DadosResultadoImportacao.Rejeicao::linha).containsExactlyInAnyOrder(3l, 4l, 5l);
+        verify(repository, times(2)).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("Deveria rejeitar linha de NDJSON com crm repetido dentro do mesmo lote")
+    void importarCenario2() throws Exception {
+        when(repository.findEmailsExistentes(anyCollection())).thenReturn(List.of());
+        when(repository.findCrmsExistentes(anyCollection())).thenReturn(List.of());
+
+        var ndjson = """
+                {"nome":"Medico 1","email":"medico1@voll.med","telefone":"61999999999","crm":"123456","especialidade":"CARDIOLOGIA","endereco":{"logradouro":"rua xpto","bairro":"bairro","cep":"00000000","uf":"DF","cidade":"Brasilia"}}
+                {"nome":"Medico 2","email":"medico2@voll.med","telefone":"61999999999","crm":"123456","especialidade":"CARDIOLOGIA","endereco":{"logradouro":"rua xpto","bairro":"bairro","cep":"00000000","uf":"DF","cidade":"Brasilia"}}
+                {json invalido
+                """;
+
+        var resultado = importador.importar(entrada(ndjson), FormatoImportacao.NDJSON, importacaoMedicos);
+
+        assertThat(resultado.importadas()).isEqualTo(1);
+        assertThat(resultado.rejeicoes()).extracting(DadosResultadoImportacao.Rejeicao::linha).containsExactlyInAnyOrder(2l, 3l);
+    }
+
+    @Test
+    @DisplayName("Deveria importar campo de CSV entre aspas com quebra de linha e informar a linha em que cada registro começa")
+    @SuppressWarnings("unchecked")
+    void importarCenario3() throws Exception {
+        when(repository.findEmailsExistentes(anyCollection())).thenReturn(List.of());
+        when(repository.findCrmsExistentes(anyCollection())).thenReturn(List.of());
+
+        var csv = """
+                nome,email,telefone,crm,especialidade,logradouro,bairro,cep,uf,cidade,complemento,numero
+                Medico 1,medico1@voll.med,61999999999,123456,CARDIOLOGIA,rua xpto,bairro,00000000,DF,Brasilia,"bloco B
+                sala ""12""\",
+                Medico 2,medico2@voll.med,61999999999,abc,CARDIOLOGIA,rua xpto,bairro,00000000,DF,Brasilia,,
+                """;
+
+        var resultado = importador.importar(entrada(csv), FormatoImportacao.CSV, importacaoMedicos);
+
+        assertThat(resultado.processadas()).isEqualTo(2);
+        assertThat(resultado.importadas()).isEqualTo(1);
+        assertThat(resultado.rejeicoes()).extracting(DadosResultadoImportacao.Rejeicao::linha).containsExactly(4l);
+        var gravados = ArgumentCaptor.forClass(List.class);
+        verify(repository).saveAll(gravados.capture());
+        var medico = (Medico) gravados.getValue().get(0);
+        assertThat(medico.getEndereco().getComplemento()).isEqualTo("bloco B\nsala \"12\"");
+    }
+
+    @Test
+    @DisplayName("Deveria rejeitar o registro de CSV com aspas sem fechamento")
+    void importarCenario4() throws Exception {
+        var csv = """
+                nome,email,telefone,crm,especialidade,logradouro,bairro,cep,uf,cidade,complemento,numero
+                Medico 1,medico1@voll.med,61999999999,123456,CARDIOLOGIA,"rua xpto,bairro,00000000,DF,Brasilia,,
+                """;
+
+        var resultado = importador.importar(entrada(csv), FormatoImportacao.CSV, importacaoMedicos);
+
+        assertThat(resultado.importadas()).isZero();
+        assertThat(resultado.rejeicoes()).extracting(DadosResultadoImportacao.Rejeicao::erro).containsExactly("Linha inválida: aspas sem fechamento");
+    }
+
+    private ByteArrayInputStream entrada(String conteudo) {
+        return new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,76 @@
+package med.voll.api.infra.metricas;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsultasPorRequisicaoFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final ConsultasPorRequisicaoFilter filtro = new ConsultasPorRequisicaoFilter(registry, true, 10, 3);
+
+    @Test
+    @DisplayName("Deveria devolver nos cabeçalhos os comandos executados até o commit da resposta e registrar a métrica do endpoint")
+    void doFilterCenario1() throws Exception {
+        var request = new MockHttpServletRequest("GET", "/medicos/1");
+        var response = new MockHttpServletResponse();
+        var hibernate = new ContadorConsultasSql();
+
+        filtro.doFilter(request, response, (req, resp) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/medicos/{id}");
+            executarComando(hibernate);
+            executarComando(hibernate);
+            resp.getWriter().write("{}");
+            resp.flushBuffer();
+        });
+
+        assertThat(response.getHeader(ConsultasPorRequisicaoFilter.CABECALHO_CONSULTAS)).isEqualTo("2");
+        assertThat(response.getHeader(ConsultasPorRequisicaoFilter.CABECALHO_TEMPO)).isNotBlank();
+        var metrica = registry.get("api.requisicao.consultas.sql").tag("uri", "/medicos/{id}").summary();
+        assertThat(metrica.count()).isEqualTo(1);
+        assertThat(metrica.totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deveria devolver os cabeçalhos também em respostas sem corpo e não contar comandos fora da requisição")
+    void doFilterCenario2() throws Exception {
+        var hibernate = new ContadorConsultasSql();
+        var response = new MockHttpServletResponse();
+
+        filtro.doFilter(new MockHttpServletRequest("DELETE", "/medicos/1"), response, (req, resp) -> executarComando(hibernate));
+        executarComando(hibernate); //Depois da requisição não há contagem ativa na thread
+
+        assertThat(response.getHeader(ConsultasPorRequisicaoFilter.CABECALHO_CONSULTAS)).isEqualTo("1");
+    }
+
+    @Test
+    @DisplayName("Deveria contar os selects repetidos na requisição, indicando um possível N+1")
+    void selectsRepetidosCenario1() {
+        var hibernate = new ContadorConsultasSql();
+        var contagem = ContadorConsultasSql.iniciar();
+        try {
+            hibernate.inspect("select m.id from medicos m where m.id=?");
+            hibernate.inspect("select m.id from medicos m where m.id=?");
+            hibernate.inspect("select m.id from medicos m where m.id=?");
+            hibernate.inspect("insert into consultas (id) values (?)");
+        } finally {
+            ContadorConsultasSql.encerrar();
+        }
+
+        assertThat(contagem.selectsRepetidos(3)).containsExactlyEntriesOf(Map.of("select m.id from medicos m where m.id=?", 3));
+    }
+
+    // Simula o Hibernate executando um comando na sessão atual
+    private void executarComando(ContadorConsultasSql hibernate) {
+        hibernate.jdbcExecuteStatementStart();
+        hibernate.jdbcExecuteStatementEnd();
+    }
+}
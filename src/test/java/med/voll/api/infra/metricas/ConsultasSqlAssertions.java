@@ -0,0 +1,36 @@
+package med.voll.api.infra.metricas;
+
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Asserções sobre a quantidade de comandos SQL executados, para fixar nos testes quantas consultas cada endpoint faz
+ */
+public final class ConsultasSqlAssertions {
+
+    private ConsultasSqlAssertions() {
+    }
+
+    /**
+     * Confere a quantidade informada pelo ConsultasPorRequisicaoFilter no cabeçalho X-Consultas-Sql da resposta do MockMvc
+     */
+    public static void assertConsultasSql(MockHttpServletResponse response, int esperado) {
+        var cabecalho = response.getHeader(ConsultasPorRequisicaoFilter.CABECALHO_CONSULTAS);
+        assertThat(cabecalho).as("cabeçalho %s", ConsultasPorRequisicaoFilter.CABECALHO_CONSULTAS).isNotNull();
+        assertThat(Integer.parseInt(cabecalho)).as("comandos SQL executados pela requisição").isEqualTo(esperado);
+    }
+
+    /**
+     * Para testes sem MockMvc: executa a ação e devolve quantos comandos SQL ela executou na thread atual
+     */
+    public static int contarConsultasSql(Runnable acao) {
+        var contagem = ContadorConsultasSql.iniciar();
+        try {
+            acao.run();
+        } finally {
+            ContadorConsultasSql.encerrar();
+        }
+        return contagem.consultas();
+    }
+}
@@ -0,0 +1,42 @@
+package med.voll.api.infra.metricas;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import med.voll.api.domain.ValidacaoException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MetricasValidacaoTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final MetricasValidacao metricas = new MetricasValidacao(registry);
+
+    @Test
+    @DisplayName("Deveria registrar o tempo da validação com o nome da classe do validador")
+    void medirCenario1() {
+        metricas.medir(MetricasValidacao.CANCELAMENTO, new ValidadorSemErro(), () -> { });
+
+        var timer = registry.get("api.validacao")
+                .tag("tipo", "cancelamento")
+                .tag("validador", "ValidadorSemErro")
+                .tag("resultado", "sucesso")
+                .timer();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deveria registrar o tempo e relançar o erro quando a validação falhar")
+    void medirCenario2() {
+        assertThatThrownBy(() -> metricas.medir(MetricasValidacao.AGENDAMENTO, new ValidadorSemErro(), () -> {
+            throw new ValidacaoException("Consulta fora do horário");
+        })).isInstanceOf(ValidacaoException.class);
+
+        assertThat(registry.get("api.validacao").tag("resultado", "erro").timer().count()).isEqualTo(1);
+    }
+
+    private static class ValidadorSemErro {
+    }
+}
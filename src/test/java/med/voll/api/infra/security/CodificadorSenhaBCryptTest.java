@@ -0,0 +1,33 @@
+package med.voll.api.infra.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CodificadorSenhaBCryptTest {
+
+    private final CodificadorSenhaBCrypt codificador = new CodificadorSenhaBCrypt(6);
+
+    @Test
+    @DisplayName("Deveria pedir novo hash quando a senha foi gerada com custo diferente do configurado, para mais ou para menos")
+    void upgradeEncodingCenario1() {
+        assertThat(codificador.upgradeEncoding(new BCryptPasswordEncoder(4).encode("123456"))).isTrue();
+        assertThat(codificador.upgradeEncoding(new BCryptPasswordEncoder(7).encode("123456"))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Não deveria pedir novo hash quando o custo for o configurado ou o valor não for um hash BCrypt")
+    void upgradeEncodingCenario2() {
+        assertThat(codificador.upgradeEncoding(codificador.encode("123456"))).isFalse();
+        assertThat(codificador.upgradeEncoding("texto-qualquer")).isFalse();
+        assertThat(codificador.upgradeEncoding(null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deveria aceitar senhas com hash gerado em outro custo")
+    void matchesCenario1() {
+        assertThat(codificador.matches("123456", new BCryptPasswordEncoder(4).encode("123456"))).isTrue();
+    }
+}
@@ -0,0 +1,51 @@
+package med.voll.api.infra.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExecutorAutenticacaoTest {
+
+    private final ExecutorAutenticacao executor = new ExecutorAutenticacao(1, 1);
+
+    private final CountDownLatch liberar = new CountDownLatch(1);
+
+    @AfterEach
+    void encerrar() {
+        liberar.countDown();
+        executor.encerrar();
+    }
+
+    @Test
+    @DisplayName("Deveria recusar na hora quando a thread e a fila estiverem ocupadas")
+    void executarCenario1() throws Exception {
+        var emAndamento = new CountDownLatch(1);
+        executor.executar(() -> {
+            emAndamento.countDown();
+            return aguardarLiberacao();
+        });
+        assertThat(emAndamento.await(5, TimeUnit.SECONDS)).isTrue();
+        var naFila = executor.executar(this::aguardarLiberacao);
+
+        assertThatThrownBy(() -> executor.executar(() -> "excedente")).isInstanceOf(RejectedExecutionException.class);
+
+        liberar.countDown();
+        assertThat(naFila.get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+    }
+
+    private String aguardarLiberacao() {
+        try {
+            liberar.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return "ok";
+    }
+}
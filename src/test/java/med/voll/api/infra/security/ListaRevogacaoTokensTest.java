@@ -0,0 +1,122 @@
+package med.voll.api.infra.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ListaRevogacaoTokensTest {
+
+    private static final String LOGIN = "ana.souza@voll.med";
+
+    @Mock
+    private TokenRevogadoRepository repository;
+
+    @Mock
+    private RenovacaoTokens renovacaoTokens;
+
+    @InjectMocks
+    private ListaRevogacaoTokens lista;
+
+    @BeforeEach
+    void configurar() {
+        ReflectionTestUtils.setField(lista, "retencao", Duration.ofHours(24));
+    }
+
+    @Test
+    @DisplayName("Deveria revogar apenas o token do logout, identificado pelo jti")
+    void revogarTokenCenario1() {
+        var token = token("jti-1", Instant.now().minusSeconds(60));
+
+        lista.revogarToken(token);
+
+        verify(repository).save(any(TokenRevogado.class));
+        assertThat(lista.revogado(token)).isTrue();
+        assertThat(lista.revogado(token("jti-2", Instant.now().minusSeconds(60)))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deveria revogar todos os tokens do usuário quando o token não possui jti")
+    void revogarTokenCenario2() {
+        lista.revogarToken(token(null, Instant.now().minusSeconds(60)));
+
+        verify(renovacaoTokens).revogarDoUsuario(LOGIN);
+        assertThat(lista.revogado(token("jti-1", Instant.now().minusSeconds(60)))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deveria revogar os tokens do usuário emitidos até a revogação (iat), mas não os emitidos depois, e os refresh tokens")
+    void revogarTokensDoUsuarioCenario1() {
+        lista.revogarTokensDoUsuario(LOGIN);
+        var revogadoEm = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+        assertThat(lista.revogado(token("jti-1", revogadoEm.minusSeconds(60)))).isTrue();
+        assertThat(lista.revogado(token("jti-2", revogadoEm.plusSeconds(1)))).isFalse();
+        assertThat(lista.revogado(new DadosTokenVerificado("jti-3", 10l, "outro@voll.med", List.of("ROLE_USER"),
+                revogadoEm.minusSeconds(60), revogadoEm.plusSeconds(3600)))).isFalse();
+        verify(renovacaoTokens).revogarDoUsuario(LOGIN);
+    }
+
+    @Test
+    @DisplayName("Deveria carregar as revogações gravadas por outras instâncias")
+    void sincronizarCenario1() {
+        var agora = Instant.now();
+        when(repository.findByExpiraEmAfter(any())).thenReturn(List.of(
+                new TokenRevogado(1l, "jti-1", null, agora.minusSeconds(60), agora.plusSeconds(3600)),
+                new TokenRevogado(2l, null, LOGIN, agora.minusSeconds(30), agora.plusSeconds(3600))));
+
+        lista.sincronizar();
+
+        assertThat(lista.revogado(token("jti-1", agora))).isTrue();
+        assertThat(lista.revogado(token("jti-2", agora.minusSeconds(120)))).isTrue();
+        assertThat(lista.revogado(token("jti-3", agora))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Não deveria perder revogação feita nesta instância enquanto a sincronização consulta o banco")
+    void sincronizarCenario2() {
+        var token = token("jti-1", Instant.now().minusSeconds(60));
+        when(repository.findByExpiraEmAfter(any())).thenAnswer(invocacao -> {
+            lista.revogarToken(token); //Ainda não visível para a consulta, que devolve a lista sem ela
+            return List.of();
+        });
+
+        lista.sincronizar();
+
+        assertThat(lista.revogado(token)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deveria descartar na sincronização as revogações locais de tokens já expirados")
+    void sincronizarCenario3() {
+        var expirado = new DadosTokenVerificado("jti-1", 10l, LOGIN, List.of("ROLE_USER"),
+                Instant.now().minusSeconds(7200), Instant.now().minusSeconds(60));
+        lista.revogarToken(expirado);
+        when(repository.findByExpiraEmAfter(any())).thenReturn(List.of());
+
+        lista.sincronizar();
+
+        var tokensRevogados = (Map<?, ?>) ReflectionTestUtils.getField(lista, "tokensRevogados");
+        assertThat(tokensRevogados).isEmpty();
+    }
+
+    private DadosTokenVerificado token(String id, Instant emitidoEm) {
+        return new DadosTokenVerificado(id, 10l, LOGIN, List.of("ROLE_USER"), emitidoEm, emitidoEm.plusSeconds(7200));
+    }
+}
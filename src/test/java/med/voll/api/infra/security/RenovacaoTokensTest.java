@@ -0,0 +1,113 @@
+package med.voll.api.infra.security;
+
+import med.voll.api.domain.usuario.DadosLoginUsuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RenovacaoTokensTest {
+
+    private static final String REFRESH_TOKEN = "refresh-token-atual";
+
+    @Mock
+    private RefreshTokenRepository repository;
+
+    @Mock
+    private TokenService tokenService;
+
+    @InjectMocks
+    private RenovacaoTokens renovacao;
+
+    @BeforeEach
+    void configurar() {
+        ReflectionTestUtils.setField(renovacao, "validade", Duration.ofDays(30));
+    }
+
+    @Test
+    @DisplayName("Deveria emitir novo JWT e novo refresh token da mesma família, marcando o atual como usado")
+    void renovarCenario1() {
+        var registro = registro(null, null);
+        when(repository.findByHash(TokenService.hash(REFRESH_TOKEN))).thenReturn(Optional.of(registro));
+        when(repository.marcarComoUsado(eq(1l), any())).thenReturn(1);
+        when(tokenService.gerarToken(any(DadosLoginUsuario.class))).thenReturn("jwt");
+
+        var tokens = renovacao.renovar(REFRESH_TOKEN);
+
+        var novo = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(repository).save(novo.capture());
+        assertThat(tokens.token()).isEqualTo("jwt");
+        assertThat(tokens.refreshToken()).isNotBlank().isNotEqualTo(REFRESH_TOKEN);
+        assertThat(novo.getValue().getHash()).isEqualTo(TokenService.hash(tokens.refreshToken()));
+        assertThat(novo.getValue().getFamilia()).isEqualTo(registro.getFamilia());
+        assertThat(novo.getValue().getExpiraEm()).isEqualTo(registro.getExpiraEm()); //A validade conta do login, não desliza a cada renovação
+    }
+
+    @Test
+    @DisplayName("Deveria revogar a família inteira quando um refresh token já usado for apresentado novamente")
+    void renovarCenario2() {
+        when(repository.findByHash(TokenService.hash(REFRESH_TOKEN))).thenReturn(Optional.of(registro(Instant.now().minusSeconds(60), null)));
+        when(repository.marcarComoUsado(eq(1l), any())).thenReturn(0);
+
+        assertThatThrownBy(() -> renovacao.renovar(REFRESH_TOKEN)).isInstanceOf(BadCredentialsException.class);
+
+        verify(repository).revogarFamilia(eq("familia-1"), any());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Deveria recusar refresh token revogado sem emitir novos tokens")
+    void renovarCenario3() {
+        when(repository.findByHash(TokenService.hash(REFRESH_TOKEN))).thenReturn(Optional.of(registro(null, Instant.now().minusSeconds(60))));
+
+        assertThatThrownBy(() -> renovacao.renovar(REFRESH_TOKEN)).isInstanceOf(BadCredentialsException.class);
+
+        verify(repository, never()).marcarComoUsado(any(), any());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Deveria revogar a família do refresh token no logout")
+    void revogarFamiliaCenario1() {
+        when(repository.findByHash(TokenService.hash(REFRESH_TOKEN))).thenReturn(Optional.of(registro(null, null)));
+
+        renovacao.revogarFamilia(REFRESH_TOKEN, "ana.souza@voll.med");
+
+        verify(repository).revogarFamilia(eq("familia-1"), any());
+    }
+
+    @Test
+    @DisplayName("Não deveria revogar no logout a família de refresh token de outro usuário")
+    void revogarFamiliaCenario2() {
+        when(repository.findByHash(TokenService.hash(REFRESH_TOKEN))).thenReturn(Optional.of(registro(null, null)));
+
+        renovacao.revogarFamilia(REFRESH_TOKEN, "outro@voll.med");
+
+        verify(repository, never()).revogarFamilia(any(), any());
+    }
+
+    private RefreshToken registro(Instant usadoEm, Instant revogadoEm) {
+        var criadoEm = Instant.now().minusSeconds(3600);
+        return new RefreshToken(1l, TokenService.hash(REFRESH_TOKEN), "familia-1", 10l, "ana.souza@voll.med",
+                criadoEm, criadoEm.plus(Duration.ofDays(30)), usadoEm, revogadoEm);
+    }
+}
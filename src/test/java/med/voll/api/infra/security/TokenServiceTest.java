@@ -0,0 +1,89 @@
+package med.voll.api.infra.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import med.voll.api.domain.usuario.DadosLoginUsuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenServiceTest {
+
+    private static final String SECRET = "segredo-de-teste";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final TokenService tokenService = new TokenService();
+
+    @BeforeEach
+    void configurar() {
+        ReflectionTestUtils.setField(tokenService, "secret", SECRET);
+        ReflectionTestUtils.setField(tokenService, "registry", registry);
+        tokenService.inicializar();
+    }
+
+    @Test
+    @DisplayName("Deveria devolver as claims do token gerado pela própria API")
+    void verificarCenario1() {
+        var token = tokenService.verificar(tokenService.gerarToken(new DadosLoginUsuario(10l, "ana.souza@voll.med", null)));
+
+        assertThat(token.id()).isNotBlank();
+        assertThat(token.idUsuario()).isEqualTo(10l);
+        assertThat(token.login()).isEqualTo("ana.souza@voll.med");
+        assertThat(token.perfis()).containsExactly("ROLE_USER");
+        assertThat(token.emitidoEm()).isNotNull();
+        assertThat(token.expiracao()).isAfter(Instant.now());
+        assertThat(registry.get("api.token.verificacao").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deveria recusar token com as claims adulteradas (assinatura de outro conteúdo)")
+    void verificarCenario2() {
+        var token = tokenService.gerarToken(new DadosLoginUsuario(10l, "ana.souza@voll.med", null));
+        var partes = token.split("\\.");
+        var payloadDeOutroUsuario = JWT.create()
+                .withIssuer("API Voll.med")
+                .withSubject("admin@voll.med")
+                .withClaim("id", 1l)
+                .withExpiresAt(Instant.now().plusSeconds(3600))
+                .sign(Algorithm.HMAC256(SECRET))
+                .split("\\.")[1];
+
+        assertThatThrownBy(() -> tokenService.verificar(partes[0] + "." + payloadDeOutroUsuario + "." + partes[2]))
+                .isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    @DisplayName("Deveria recusar token assinado com outra chave")
+    void verificarCenario3() {
+        var token = JWT.create()
+                .withIssuer("API Voll.med")
+                .withSubject("ana.souza@voll.med")
+                .withClaim("id", 10l)
+                .withExpiresAt(Instant.now().plusSeconds(3600))
+                .sign(Algorithm.HMAC256("outro-segredo"));
+
+        assertThatThrownBy(() -> tokenService.verificar(token)).isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    @DisplayName("Deveria recusar token expirado")
+    void verificarCenario4() {
+        var token = JWT.create()
+                .withIssuer("API Voll.med")
+                .withSubject("ana.souza@voll.med")
+                .withClaim("id", 10l)
+                .withIssuedAt(Instant.now().minusSeconds(7200))
+                .withExpiresAt(Instant.now().minusSeconds(60))
+                .sign(Algorithm.HMAC256(SECRET));
+
+        assertThatThrownBy(() -> tokenService.verificar(token)).isInstanceOf(RuntimeException.class);
+    }
+}